@@ -0,0 +1,67 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking front for a {@link BookingSystem}, for event-loop based callers. Every
+ * method returns at once with a {@link CompletableFuture}; the blocking call runs on its
+ * own virtual thread, which parks cheaply while it waits for a room lock, the repository
+ * or the notification service.
+ * <p>
+ * All work goes through the wrapped system, so asynchronous and blocking callers share its
+ * room locks, indexes, cache, change feed, holds, waitlist and metrics, and rooms are
+ * persisted the same way. Invalid input fails the future with
+ * {@link IllegalArgumentException}, cancelling a started booking with
+ * {@link IllegalStateException}, and notification failures are ignored.
+ */
+public class AsyncBookingSystem implements AutoCloseable {
+
+    private final BookingSystem bookingSystem;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("async-booking-", 0).factory());
+
+    public AsyncBookingSystem(BookingSystem bookingSystem) {
+        if (bookingSystem == null) {
+            throw new IllegalArgumentException("Bokningssystemet kan inte vara null");
+        }
+        this.bookingSystem = bookingSystem;
+    }
+
+    public CompletableFuture<Boolean> bookRoomAsync(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        return submit(() -> bookingSystem.bookRoom(roomId, startTime, endTime));
+    }
+
+    public CompletableFuture<Boolean> cancelBookingAsync(String bookingId) {
+        return submit(() -> bookingSystem.cancelBooking(bookingId));
+    }
+
+    public CompletableFuture<List<Room>> getAvailableRoomsAsync(LocalDateTime startTime, LocalDateTime endTime) {
+        return submit(() -> bookingSystem.getAvailableRooms(startTime, endTime));
+    }
+
+    /**
+     * Stops accepting calls and waits for the ones in flight to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(call.get());
+            } catch (RuntimeException e) {
+                // Felet lämnas ut som det är, utan att slås in i CompletionException
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of {@link BookingSystem#getAvailableRooms(LocalDateTime, LocalDateTime)} results
+ * keyed by the exact query window.
+ * <p>
+ * Lookups are a single map read. When a booking (or hold, or series) is added
+ * or removed, only the windows overlapping its interval are dropped; results for other
+ * windows cannot have changed. A result computed while an overlapping invalidation
+ * happened is not stored, so a slow query can never put stale availability back, while
+ * changes elsewhere do not keep it out. To decide this the cache remembers the last
+ * {@value #RECENT_INVALIDATIONS} invalidations; a query that ran across more than that is
+ * not stored either. The cache holds at most {@code maxEntries} windows: once it is full,
+ * windows that have already ended are dropped first and then the least recently used
+ * window, so rolling windows such as "the next hour" never fill it with dead entries.
+ */
+public class AvailabilityCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    static final int RECENT_INVALIDATIONS = 256;
+
+    /**
+     * Point-in-time cache statistics.
+     */
+    public record Stats(long hits, long misses, long invalidations, long evictions, int size) {
+    }
+
+    private record Window(LocalDateTime startTime, LocalDateTime endTime) {
+
+        // Samma inklusiva överlappning som Booking#overlaps
+        private boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return !endTime.isBefore(start) && !startTime.isAfter(end);
+        }
+    }
+
+    // Ett intervall som är null står för invalidateAll
+    private record Invalidation(long version, Window interval) {
+    }
+
+    private final int maxEntries;
+    // Åtkomstordnad, så att det äldsta elementet är det minst nyligen använda
+    private final LinkedHashMap<Window, List<Room>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // Räknas upp vid varje invalidering, de senaste sparas så att put kan se vilka fönster de rörde
+    private volatile long version;
+    private final ArrayDeque<Invalidation> recentInvalidations = new ArrayDeque<>();
+
+    public AvailabilityCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public AvailabilityCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cachestorleken måste vara större än 0");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached free rooms for the window, or {@code null} on a miss.
+     */
+    synchronized List<Room> get(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Room> cached = entries.get(new Window(startTime, endTime));
+        if (cached == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Returns the version to pass to {@link #put} for a result computed from now on.
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * Stores a result unless an invalidation overlapping the window happened since
+     * {@code versionBefore}. If the cache is full, windows ending before {@code now} are
+     * dropped first, then the least recently used windows until there is room.
+     */
+    synchronized void put(LocalDateTime startTime, LocalDateTime endTime, List<Room> rooms, long versionBefore,
+                          LocalDateTime now) {
+        if (invalidatedSince(versionBefore, startTime, endTime)) {
+            return;
+        }
+        if (now != null && entries.size() >= maxEntries) {
+            entries.keySet().removeIf(window -> window.endTime().isBefore(now));
+        }
+        Iterator<Window> leastRecentlyUsed = entries.keySet().iterator();
+        while (entries.size() >= maxEntries && leastRecentlyUsed.hasNext()) {
+            leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            evictions.increment();
+        }
+        entries.put(new Window(startTime, endTime), List.copyOf(rooms));
+    }
+
+    /**
+     * Drops every cached window overlapping the changed interval.
+     */
+    synchronized void invalidate(LocalDateTime startTime, LocalDateTime endTime) {
+        recordInvalidation(new Window(startTime, endTime));
+        entries.keySet().removeIf(window -> window.overlaps(startTime, endTime));
+        invalidations.increment();
+    }
+
+    /**
+     * Drops every cached window, e.g. after rooms were changed outside the booking system.
+     */
+    public synchronized void invalidateAll() {
+        recordInvalidation(null);
+        entries.clear();
+        invalidations.increment();
+    }
+
+    private void recordInvalidation(Window interval) {
+        version++;
+        recentInvalidations.addLast(new Invalidation(version, interval));
+        if (recentInvalidations.size() > RECENT_INVALIDATIONS) {
+            recentInvalidations.removeFirst();
+        }
+    }
+
+    private boolean invalidatedSince(long versionBefore, LocalDateTime startTime, LocalDateTime endTime) {
+        if (version == versionBefore) {
+            return false;
+        }
+        Invalidation oldest = recentInvalidations.peekFirst();
+        // Historiken räcker inte tillbaka till versionen, så resultatet kan inte kontrolleras
+        if (oldest == null || oldest.version() > versionBefore + 1) {
+            return true;
+        }
+        Iterator<Invalidation> newestFirst = recentInvalidations.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Invalidation invalidation = newestFirst.next();
+            if (invalidation.version() <= versionBefore) {
+                return false;
+            }
+            if (invalidation.interval() == null || invalidation.interval().overlaps(startTime, endTime)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), evictions.sum(), entries.size());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+/**
+ * A free interval in a room found by {@link BookingSystem#findEarliestSlot}.
+ */
+public record AvailableSlot(Room room, LocalDateTime startTime, LocalDateTime endTime) {
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Notification service that can deliver several notifications in one call,
+ * e.g. one request to a mail gateway. If the call fails the whole batch is retried.
+ */
+public interface BatchNotificationService extends NotificationService {
+    void sendBatch(List<Notification> notifications) throws NotificationException;
+}
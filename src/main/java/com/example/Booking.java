@@ -1,22 +1,66 @@
 package com.example;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
+/**
+ * A booking of one room between two inclusive points in time.
+ * <p>
+ * Times are stored compactly as epoch seconds plus nanos (treating the local date-time
+ * as UTC), so a booking holds four primitives instead of two {@link LocalDateTime}
+ * object graphs, and overlap checks compare numbers instead of objects. The
+ * {@link LocalDateTime} getters are views created on demand. Room ids are interned,
+ * so all bookings of a room share one id string.
+ */
 public class Booking {
     private final String id;
     private final String roomId;
-    private final LocalDateTime startTime;
-    private final LocalDateTime endTime;
+    private final long startSecond;
+    private final long endSecond;
+    private final int startNano;
+    private final int endNano;
 
     public Booking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
         this.id = id;
-        this.roomId = roomId;
-        this.startTime = startTime;
-        this.endTime = endTime;
+        this.roomId = roomId == null ? null : roomId.intern();
+        this.startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+        this.startNano = startTime.getNano();
+        this.endSecond = endTime.toEpochSecond(ZoneOffset.UTC);
+        this.endNano = endTime.getNano();
     }
 
     public boolean overlaps(LocalDateTime start, LocalDateTime end) {
-        return !endTime.isBefore(start) && !startTime.isAfter(end);
+        return overlaps(start.toEpochSecond(ZoneOffset.UTC), start.getNano(),
+                end.toEpochSecond(ZoneOffset.UTC), end.getNano());
+    }
+
+    boolean overlaps(long querySecond, int queryNano, long queryEndSecond, int queryEndNano) {
+        return compare(endSecond, endNano, querySecond, queryNano) >= 0
+                && compare(startSecond, startNano, queryEndSecond, queryEndNano) <= 0;
+    }
+
+    /**
+     * Compares two instants given as epoch seconds plus nanos.
+     */
+    static int compare(long firstSecond, int firstNano, long secondSecond, int secondNano) {
+        int bySecond = Long.compare(firstSecond, secondSecond);
+        return bySecond != 0 ? bySecond : Integer.compare(firstNano, secondNano);
+    }
+
+    long startSecond() {
+        return startSecond;
+    }
+
+    int startNano() {
+        return startNano;
+    }
+
+    long endSecond() {
+        return endSecond;
+    }
+
+    int endNano() {
+        return endNano;
     }
 
     public String getId() {
@@ -28,10 +72,10 @@ public class Booking {
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
     }
 
     public LocalDateTime getEndTime() {
-        return endTime;
+        return LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC);
     }
 }
@@ -0,0 +1,13 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Cold storage for bookings that have ended and been moved out of their {@link Room}.
+ */
+public interface BookingArchive {
+    void archive(Collection<Booking> bookings);
+
+    Optional<Booking> find(String bookingId);
+}
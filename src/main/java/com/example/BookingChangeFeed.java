@@ -0,0 +1,111 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-process, sequence-numbered feed of booking changes, so downstream consumers can
+ * process what changed instead of diffing every room.
+ * <p>
+ * Events are kept in a fixed-size ring buffer. Publishing never blocks on consumers: once
+ * the buffer is full the oldest event is overwritten. Every consumer reads through its own
+ * {@link Subscription} cursor without locking, and can start at the live end or replay from
+ * any sequence number still in the buffer. A consumer that falls more than the capacity
+ * behind gets an {@link IllegalStateException} and has to resynchronize from the repository.
+ */
+public class BookingChangeFeed {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final AtomicReferenceArray<BookingEvent> ring;
+    private final int mask;
+    // Senast publicerade sekvensnummer, läses utan lås av prenumeranterna
+    private volatile long published;
+
+    public BookingChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public BookingChangeFeed(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Kapaciteten måste vara en tvåpotens");
+        }
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    synchronized long publish(BookingEvent.Type type, Booking booking, RecurringBooking series) {
+        long sequence = published + 1;
+        ring.set((int) (sequence & mask), new BookingEvent(sequence, type, booking, series));
+        published = sequence;
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence number of the latest event, or 0 if nothing has been published.
+     */
+    public long lastSequence() {
+        return published;
+    }
+
+    /**
+     * Returns the oldest sequence number that can still be replayed.
+     */
+    public long oldestSequence() {
+        return Math.max(1, published - ring.length() + 1);
+    }
+
+    /**
+     * Subscribes to events published from now on.
+     */
+    public Subscription subscribe() {
+        return new Subscription(published + 1);
+    }
+
+    /**
+     * Subscribes starting with the given sequence number, replaying the events still buffered.
+     */
+    public Subscription subscribeFrom(long sequence) {
+        if (sequence < oldestSequence()) {
+            throw new IllegalStateException("Händelse " + sequence + " finns inte längre i flödet");
+        }
+        return new Subscription(Math.min(sequence, published + 1));
+    }
+
+    /**
+     * A consumer's position in the feed. A subscription is meant for one consuming thread.
+     */
+    public final class Subscription {
+        private long next;
+
+        private Subscription(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Returns up to {@code maxEvents} events after the previous poll, in sequence order.
+         */
+        public List<BookingEvent> poll(int maxEvents) {
+            long last = Math.min(published, next + maxEvents - 1);
+            List<BookingEvent> events = new ArrayList<>((int) Math.max(0, last - next + 1));
+            for (long sequence = next; sequence <= last; sequence++) {
+                BookingEvent event = ring.get((int) (sequence & mask));
+                // En nyare händelse i facket betyder att prenumeranten blivit omkörd
+                if (event == null || event.sequence() != sequence) {
+                    throw new IllegalStateException("Händelse " + sequence + " finns inte längre i flödet");
+                }
+                events.add(event);
+            }
+            next = last + 1;
+            return events;
+        }
+
+        /**
+         * Returns the sequence number the next poll starts at.
+         */
+        public long position() {
+            return next;
+        }
+    }
+}
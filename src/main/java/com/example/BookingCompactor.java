@@ -0,0 +1,43 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background task that periodically calls {@link BookingSystem#archiveFinishedBookings(Duration)},
+ * so rooms only keep bookings that can still conflict with new ones.
+ */
+public class BookingCompactor implements AutoCloseable {
+
+    private final ScheduledExecutorService scheduler;
+
+    public BookingCompactor(BookingSystem bookingSystem, Duration retention, Duration interval) {
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Lagringstiden kan inte vara negativ");
+        }
+        if (interval == null || interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("Intervallet måste vara större än 0");
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "booking-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                bookingSystem.archiveFinishedBookings(retention);
+            } catch (RuntimeException e) {
+                // Ett misslyckat varv får inte stoppa kommande körningar
+                System.err.println("Warning! Archiving finished bookings failed: " + e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
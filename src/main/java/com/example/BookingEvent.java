@@ -0,0 +1,15 @@
+package com.example;
+
+/**
+ * One change published on a {@link BookingChangeFeed}. Sequence numbers start at 1 and
+ * have no gaps. {@code series} is only set for {@link Type#SERIES_CREATED}, {@code booking}
+ * for the other types; a cancelled series occurrence is a {@link Type#CANCELLED} booking.
+ */
+public record BookingEvent(long sequence, Type type, Booking booking, RecurringBooking series) {
+
+    public enum Type {
+        CREATED,
+        CANCELLED,
+        SERIES_CREATED
+    }
+}
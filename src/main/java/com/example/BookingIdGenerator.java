@@ -0,0 +1,10 @@
+package com.example;
+
+/**
+ * Creates ids for new bookings. Implementations must be thread-safe and never
+ * return the same id twice.
+ */
+@FunctionalInterface
+public interface BookingIdGenerator {
+    String nextId();
+}
@@ -0,0 +1,240 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Balanced (AVL) interval tree holding the bookings of a single room.
+ * Nodes are ordered by start time (ties broken by booking id) and every node
+ * keeps the latest end time of its subtree, so inserts, removals and overlap
+ * checks all run in O(log n). Overlap uses the same inclusive semantics as
+ * {@link Booking#overlaps(LocalDateTime, LocalDateTime)}. All comparisons work on the
+ * booking's primitive epoch-second/nano fields, so no time objects are created.
+ */
+class BookingIntervalTree {
+
+    private static final Comparator<Booking> ORDER = Comparator
+            .comparingLong(Booking::startSecond)
+            .thenComparingInt(Booking::startNano)
+            .thenComparing(Booking::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private Node root;
+    private int size;
+
+    private static final class Node {
+        private final Booking booking;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private long maxEndSecond;
+        private int maxEndNano;
+
+        private Node(Booking booking) {
+            this.booking = booking;
+            this.maxEndSecond = booking.endSecond();
+            this.maxEndNano = booking.endNano();
+        }
+
+        private boolean endsBefore(long second, int nano) {
+            return Booking.compare(maxEndSecond, maxEndNano, second, nano) < 0;
+        }
+    }
+
+    void insert(Booking booking) {
+        root = insert(root, booking);
+    }
+
+    void remove(Booking booking) {
+        root = remove(root, booking);
+    }
+
+    boolean overlapsAny(LocalDateTime start, LocalDateTime end) {
+        return findOverlap(start, end) != null;
+    }
+
+    /**
+     * Returns one booking overlapping the given interval, or {@code null} if the interval is free.
+     */
+    Booking findOverlap(LocalDateTime start, LocalDateTime end) {
+        long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+        int startNano = start.getNano();
+        long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+        int endNano = end.getNano();
+
+        Node node = root;
+        while (node != null) {
+            if (node.booking.overlaps(startSecond, startNano, endSecond, endNano)) {
+                return node.booking;
+            }
+            // Om vänster delträd slutar före start kan ingen överlappning finnas där
+            if (node.left != null && !node.left.endsBefore(startSecond, startNano)) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Visits every booking overlapping the given interval in start-time order.
+     * Subtrees that end before the interval or start after it are skipped.
+     */
+    void forEachOverlap(LocalDateTime start, LocalDateTime end, Consumer<Booking> action) {
+        forEachOverlap(root, start.toEpochSecond(ZoneOffset.UTC), start.getNano(),
+                end.toEpochSecond(ZoneOffset.UTC), end.getNano(), action);
+    }
+
+    private void forEachOverlap(Node node, long startSecond, int startNano, long endSecond, int endNano,
+                                Consumer<Booking> action) {
+        if (node == null || node.endsBefore(startSecond, startNano)) {
+            return;
+        }
+        forEachOverlap(node.left, startSecond, startNano, endSecond, endNano, action);
+        Booking booking = node.booking;
+        if (Booking.compare(booking.startSecond(), booking.startNano(), endSecond, endNano) > 0) {
+            return;
+        }
+        if (booking.overlaps(startSecond, startNano, endSecond, endNano)) {
+            action.accept(booking);
+        }
+        forEachOverlap(node.right, startSecond, startNano, endSecond, endNano, action);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns all bookings ordered by start time.
+     */
+    List<Booking> toList() {
+        List<Booking> result = new ArrayList<>(size);
+        collect(root, result);
+        return result;
+    }
+
+    private void collect(Node node, List<Booking> result) {
+        if (node == null) {
+            return;
+        }
+        collect(node.left, result);
+        result.add(node.booking);
+        collect(node.right, result);
+    }
+
+    private Node insert(Node node, Booking booking) {
+        if (node == null) {
+            size++;
+            return new Node(booking);
+        }
+        int cmp = ORDER.compare(booking, node.booking);
+        if (cmp < 0) {
+            node.left = insert(node.left, booking);
+        } else if (cmp > 0) {
+            node.right = insert(node.right, booking);
+        } else {
+            return node;
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, Booking booking) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(booking, node.booking);
+        if (cmp < 0) {
+            node.left = remove(node.left, booking);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, booking);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEndSecond = node.booking.endSecond();
+        node.maxEndNano = node.booking.endNano();
+        takeLaterEnd(node, node.left);
+        takeLaterEnd(node, node.right);
+    }
+
+    private static void takeLaterEnd(Node node, Node child) {
+        if (child != null && !child.endsBefore(node.maxEndSecond, node.maxEndNano)) {
+            node.maxEndSecond = child.maxEndSecond;
+            node.maxEndNano = child.maxEndNano;
+        }
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example;
+
+/**
+ * Instrumentation hooks called by {@link BookingSystem} around its operations and
+ * dependency calls. The default {@link #NOOP} does not even read the clock, so metrics
+ * cost nothing unless a recording implementation such as {@link RecordingBookingMetrics}
+ * is installed.
+ */
+public interface BookingMetrics {
+
+    /**
+     * Timed operations: public {@link BookingSystem} calls and the dependency calls made by them.
+     */
+    enum Operation {
+        BOOK_ROOM,
+        CANCEL_BOOKING,
+        GET_AVAILABLE_ROOMS,
+        REPOSITORY_FIND,
+        REPOSITORY_FIND_ALL,
+        REPOSITORY_SAVE,
+        AVAILABILITY_CHECK,
+        NOTIFICATION_SEND
+    }
+
+    /**
+     * Counted outcomes of {@link BookingSystem} calls.
+     */
+    enum Outcome {
+        BOOKED,
+        CONFLICT,
+        INVALID,
+        CANCELLED,
+        NOT_CANCELLED,
+        PROMOTED,
+        NOTIFICATION_FAILED
+    }
+
+    BookingMetrics NOOP = new BookingMetrics() {
+        @Override
+        public long startTimer() {
+            return 0;
+        }
+
+        @Override
+        public void stopTimer(Operation operation, long startNanos) {
+        }
+
+        @Override
+        public void increment(Outcome outcome) {
+        }
+    };
+
+    /**
+     * Returns a start timestamp to pass to {@link #stopTimer(Operation, long)}.
+     */
+    long startTimer();
+
+    void stopTimer(Operation operation, long startNanos);
+
+    void increment(Outcome outcome);
+}
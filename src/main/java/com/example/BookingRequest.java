@@ -0,0 +1,9 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+/**
+ * One requested booking in a call to {@link BookingSystem#bookRooms(java.util.List)}.
+ */
+public record BookingRequest(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+}
@@ -0,0 +1,27 @@
+package com.example;
+
+/**
+ * Outcome of a single {@link BookingRequest} in a bulk booking. {@code booking} is only
+ * set when the request was booked, {@code message} explains why it was rejected.
+ */
+public record BookingResult(BookingRequest request, Status status, Booking booking, String message) {
+
+    public enum Status {
+        BOOKED,
+        CONFLICT,
+        INVALID,
+        ROOM_NOT_FOUND
+    }
+
+    static BookingResult booked(BookingRequest request, Booking booking) {
+        return new BookingResult(request, Status.BOOKED, booking, null);
+    }
+
+    static BookingResult rejected(BookingRequest request, Status status, String message) {
+        return new BookingResult(request, status, null, message);
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+}
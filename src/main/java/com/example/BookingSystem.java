@@ -1,13 +1,44 @@
 package com.example;
 
+import com.example.BookingMetrics.Operation;
+import com.example.BookingMetrics.Outcome;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BookingSystem {
+    private static final Duration HOLD_TICK = Duration.ofSeconds(1);
+    private static final int HOLD_WHEEL_SIZE = 512;
+
     private final TimeProvider timeProvider;
     private final RoomRepository roomRepository;
     private final NotificationService notificationService;
+    // Boknings-id -> bokning (och därmed rum-id) för bokningar gjorda via systemet
+    private final Map<String, Booking> bookingIndex = new ConcurrentHashMap<>();
+    // Serie-id -> rum-id för återkommande bokningar, förekomsternas id slås upp via serien
+    private final Map<String, String> seriesIndex = new ConcurrentHashMap<>();
+    private final RoomLocks roomLocks = new RoomLocks();
+    private volatile OccupancyIndex occupancyIndex;
+    private volatile AvailabilityCache availabilityCache;
+    private volatile ParallelAvailabilityCheck parallelCheck;
+    private volatile BookingChangeFeed changeFeed;
+    private volatile BookingIdGenerator idGenerator = new TimeOrderedIdGenerator();
+    private volatile BookingArchive bookingArchive;
+    private volatile BookingMetrics metrics = BookingMetrics.NOOP;
+    // Reservationer finns bara i minnet, hjulet skapas först när den första görs
+    private final Map<String, Hold> holdIndex = new ConcurrentHashMap<>();
+    private final Map<String, HashedTimerWheel.Timeout> holdExpiries = new ConcurrentHashMap<>();
+    private volatile HashedTimerWheel holdTimers;
+    // Väntelistan finns också bara i minnet
+    private final Waitlist waitlist = new Waitlist();
 
     public BookingSystem(TimeProvider timeProvider,
                          RoomRepository roomRepository,
@@ -17,83 +48,947 @@ public class BookingSystem {
         this.notificationService = notificationService;
     }
 
+    /**
+     * Enables the bucketed occupancy index for {@link #getAvailableRooms}. The index only
+     * sees booking changes made through this system, so it should be set before use.
+     */
+    public void setOccupancyIndex(OccupancyIndex occupancyIndex) {
+        this.occupancyIndex = occupancyIndex;
+    }
+
+    /**
+     * Enables caching of {@link #getAvailableRooms(LocalDateTime, LocalDateTime)} results per
+     * time window. Like the occupancy index, the cache only sees booking changes made
+     * through this system, so it should be set before use.
+     */
+    public void setAvailabilityCache(AvailabilityCache availabilityCache) {
+        this.availabilityCache = availabilityCache;
+    }
+
+    /**
+     * Checks availability in the given fork/join pool once a query covers at least
+     * {@code threshold} rooms, and on the calling thread below that; a {@code null} pool
+     * turns parallel checks off. The pool belongs to the caller and should be dedicated to
+     * availability queries, so they neither starve nor wait for work in the common pool.
+     * {@code AvailabilityBenchmark} in the test sources measures the crossover point.
+     */
+    public void setParallelAvailability(ForkJoinPool pool, int threshold) {
+        this.parallelCheck = pool == null ? null : new ParallelAvailabilityCheck(pool, threshold);
+    }
+
+    /**
+     * Publishes every booking created or cancelled through this system, and every series
+     * created, to the feed. Events are published while the room is locked, so the events of
+     * one room are in the same order as its changes. Archiving is not a cancellation and is
+     * not published.
+     */
+    public void setChangeFeed(BookingChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    public void setBookingIdGenerator(BookingIdGenerator idGenerator) {
+        if (idGenerator == null) {
+            throw new IllegalArgumentException("Id-generatorn kan inte vara null");
+        }
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Sets where {@link #archiveFinishedBookings(Duration)} moves finished bookings.
+     * Cancelling an archived booking is rejected like any other finished booking.
+     */
+    public void setBookingArchive(BookingArchive bookingArchive) {
+        this.bookingArchive = bookingArchive;
+    }
+
+    /**
+     * Sets where latencies and outcomes are recorded. The default {@link BookingMetrics#NOOP}
+     * records nothing.
+     */
+    public void setMetrics(BookingMetrics metrics) {
+        this.metrics = metrics == null ? BookingMetrics.NOOP : metrics;
+    }
+
     public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null || roomId == null) {
-            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        BookingMetrics metrics = this.metrics;
+        long started = metrics.startTimer();
+        try {
+            boolean booked = book(roomId, startTime, endTime, metrics);
+            metrics.increment(booked ? Outcome.BOOKED : Outcome.CONFLICT);
+            return booked;
+        } catch (IllegalArgumentException e) {
+            metrics.increment(Outcome.INVALID);
+            throw e;
+        } finally {
+            metrics.stopTimer(Operation.BOOK_ROOM, started);
         }
+    }
 
-        if (startTime.isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+    private boolean book(String roomId, LocalDateTime startTime, LocalDateTime endTime, BookingMetrics metrics) {
+        validateBooking(roomId, startTime, endTime, timeProvider);
+        expireHolds();
+
+        Booking booking;
+        // Kontroll och bokning måste ske atomärt per rum, annars kan två anrop dubbelboka
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            long call = metrics.startTimer();
+            Optional<Room> found = roomRepository.findById(roomId);
+            metrics.stopTimer(Operation.REPOSITORY_FIND, call);
+            Room room = found.orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+
+            call = metrics.startTimer();
+            boolean available = room.isAvailable(startTime, endTime);
+            metrics.stopTimer(Operation.AVAILABILITY_CHECK, call);
+            if (!available) {
+                return false;
+            }
+
+            booking = new Booking(idGenerator.nextId(), roomId, startTime, endTime);
+            room.addBooking(booking);
+            persist(room, metrics);
+            bookingIndex.put(booking.getId(), booking);
+            bookingAdded(room, booking);
+            publish(BookingEvent.Type.CREATED, booking, null);
+        } finally {
+            lock.unlock();
         }
 
-        if (endTime.isBefore(startTime)) {
-            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        sendBookingConfirmation(booking, metrics);
+        return true;
+    }
+
+    /**
+     * Books many slots at once. Requests are grouped per room, checked against existing
+     * bookings and against each other, and every touched room is saved once. Each request
+     * gets its own result, so invalid or conflicting requests do not abort the batch.
+     * Results are returned in the same order as the requests.
+     */
+    public List<BookingResult> bookRooms(List<BookingRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Bokningslistan kan inte vara null");
+        }
+
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<String, List<Integer>> requestsByRoom = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Bokningsförfrågan kan inte vara null");
+                }
+                validateBooking(request.roomId(), request.startTime(), request.endTime(), timeProvider);
+                requestsByRoom.computeIfAbsent(request.roomId(), roomId -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BookingResult.rejected(request, BookingResult.Status.INVALID, e.getMessage());
+            }
+        }
+
+        expireHolds();
+        List<Booking> booked = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : requestsByRoom.entrySet()) {
+            bookRoomBatch(entry.getKey(), entry.getValue(), requests, results, booked);
+        }
+
+        BookingMetrics metrics = this.metrics;
+        for (Booking booking : booked) {
+            sendBookingConfirmation(booking, metrics);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void bookRoomBatch(String roomId, List<Integer> indexes, List<BookingRequest> requests,
+                               BookingResult[] results, List<Booking> booked) {
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            Optional<Room> found = roomRepository.findById(roomId);
+            if (found.isEmpty()) {
+                for (int index : indexes) {
+                    results[index] = BookingResult.rejected(requests.get(index),
+                            BookingResult.Status.ROOM_NOT_FOUND, "Rummet existerar inte");
+                }
+                return;
+            }
+
+            Room room = found.get();
+            List<Booking> added = new ArrayList<>();
+            for (int index : indexes) {
+                BookingRequest request = requests.get(index);
+                // Tidigare förfrågningar i samma batch ligger redan i rummet och kontrolleras här
+                if (!room.isAvailable(request.startTime(), request.endTime())) {
+                    results[index] = BookingResult.rejected(request, BookingResult.Status.CONFLICT,
+                            "Rummet är redan bokat under den tiden");
+                    continue;
+                }
+                Booking booking = new Booking(idGenerator.nextId(), roomId,
+                        request.startTime(), request.endTime());
+                room.addBooking(booking);
+                added.add(booking);
+                results[index] = BookingResult.booked(request, booking);
+            }
+
+            if (added.isEmpty()) {
+                return;
+            }
+            persist(room, metrics);
+            for (Booking booking : added) {
+                bookingIndex.put(booking.getId(), booking);
+                bookingAdded(room, booking);
+                publish(BookingEvent.Type.CREATED, booking, null);
+            }
+            booked.addAll(added);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Books a recurring series starting with the given occurrence. The series is stored as
+     * one rule in the room and is only booked if none of its occurrences overlaps an existing
+     * booking or series. Single occurrences are cancelled with {@link #cancelBooking(String)}
+     * using the occurrence id {@code <series id>#<k>}. Returns the series, or empty on conflict.
+     */
+    public Optional<RecurringBooking> bookRecurring(String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                                                    RecurrenceRule rule) {
+        validateBooking(roomId, startTime, endTime, timeProvider);
+        if (rule == null) {
+            throw new IllegalArgumentException("Återkommande bokning kräver en regel");
+        }
+        expireHolds();
+
+        RecurringBooking series;
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+
+            series = new RecurringBooking(idGenerator.nextId(), roomId, startTime, endTime, rule);
+            if (!room.isAvailable(series)) {
+                return Optional.empty();
+            }
+
+            room.addSeries(series);
+            persist(room, metrics);
+            seriesIndex.put(series.getId(), roomId);
+            seriesAdded(room, series);
+            publish(BookingEvent.Type.SERIES_CREATED, null, series);
+        } finally {
+            lock.unlock();
+        }
+
+        Booking first = series.findOverlap(series.getStartTime(), series.getLastEndTime());
+        if (first != null) {
+            sendBookingConfirmation(first, metrics);
         }
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+        return Optional.of(series);
+    }
+
+    /**
+     * Holds a room for {@code ttl} while, for example, a customer pays. The hold blocks the
+     * interval like a booking but is neither saved nor notified about. It becomes a booking
+     * with the hold's id through {@link #confirmHold(String)}, and disappears through
+     * {@link #releaseHold(String)} or when it expires. Returns empty if the room is taken.
+     * Holds are kept on the {@link Room} object, so they need a repository that keeps its
+     * rooms in memory.
+     */
+    public Optional<Hold> holdRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime, Duration ttl) {
+        validateBooking(roomId, startTime, endTime, timeProvider);
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Reservationens livslängd måste vara större än 0");
+        }
+        expireHolds();
+
+        Hold hold;
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+            if (!room.isAvailable(startTime, endTime)) {
+                return Optional.empty();
+            }
+
+            hold = new Hold(new Booking(idGenerator.nextId(), roomId, startTime, endTime),
+                    timeProvider.getCurrentTime().plus(ttl));
+            room.addHold(hold);
+            holdIndex.put(hold.id(), hold);
+            bookingAdded(room, hold.booking());
+        } finally {
+            lock.unlock();
+        }
 
-        if (!room.isAvailable(startTime, endTime)) {
+        holdExpiries.put(hold.id(), holdTimers().schedule(hold.expiresAt(), () -> expireHold(hold.id())));
+        return Optional.of(hold);
+    }
+
+    /**
+     * Turns a live hold into a booking with the same id, saving the room and sending the
+     * booking confirmation. Returns {@code false} if the hold was released or has expired.
+     */
+    public boolean confirmHold(String holdId) {
+        if (holdId == null) {
+            throw new IllegalArgumentException("Reservations-id kan inte vara null");
+        }
+        expireHolds();
+        Hold hold = holdIndex.get(holdId);
+        if (hold == null) {
             return false;
         }
 
-        Booking booking = new Booking(UUID.randomUUID().toString(), roomId, startTime, endTime);
-        room.addBooking(booking);
-        roomRepository.save(room);
+        Booking booking = hold.booking();
+        List<Booking> promoted = List.of();
+        boolean confirmed = false;
+        Lock lock = roomLocks.forRoom(hold.roomId());
+        lock.lock();
+        try {
+            Optional<Room> found = roomRepository.findById(hold.roomId());
+            if (found.isEmpty() || found.get().removeHold(holdId) == null) {
+                return false;
+            }
+            Room room = found.get();
+            forgetHold(holdId);
+            // Hjulet kan ligga upp till ett tick efter, utgångstiden gäller exakt
+            if (timeProvider.getCurrentTime().isAfter(hold.expiresAt())) {
+                bookingRemoved(room, booking);
+                promoted = promoteWaitlisted(room, booking);
+            } else {
+                room.addBooking(booking);
+                persist(room, metrics);
+                bookingIndex.put(booking.getId(), booking);
+                bookingAdded(room, booking);
+                publish(BookingEvent.Type.CREATED, booking, null);
+                confirmed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (confirmed) {
+            sendBookingConfirmation(booking, metrics);
+        }
+        promoted.forEach(request -> sendBookingConfirmation(request, metrics));
+        return confirmed;
+    }
+
+    /**
+     * Releases a hold without saving or notifying. Returns {@code false} if it was already gone.
+     */
+    public boolean releaseHold(String holdId) {
+        if (holdId == null) {
+            throw new IllegalArgumentException("Reservations-id kan inte vara null");
+        }
+        return removeHold(holdId);
+    }
+
+    /**
+     * Releases every hold whose time has run out. Bookings and availability checks call
+     * this themselves; a scheduler may call it too so expired holds do not linger in idle rooms.
+     */
+    public int expireHolds() {
+        HashedTimerWheel timers = holdTimers;
+        return timers == null ? 0 : timers.advance();
+    }
+
+    private void expireHold(String holdId) {
+        holdExpiries.remove(holdId);
+        removeHold(holdId);
+    }
 
+    private boolean removeHold(String holdId) {
+        Hold hold = holdIndex.get(holdId);
+        if (hold == null) {
+            return false;
+        }
+        List<Booking> promoted;
+        Lock lock = roomLocks.forRoom(hold.roomId());
+        lock.lock();
         try {
-            notificationService.sendBookingConfirmation(booking);
-        } catch (NotificationException e) {
-            // Fortsätt även om notifieringen misslyckas
+            Optional<Room> found = roomRepository.findById(hold.roomId());
+            forgetHold(holdId);
+            if (found.isEmpty() || found.get().removeHold(holdId) == null) {
+                return false;
+            }
+            bookingRemoved(found.get(), hold.booking());
+            promoted = promoteWaitlisted(found.get(), hold.booking());
+        } finally {
+            lock.unlock();
         }
 
+        promoted.forEach(request -> sendBookingConfirmation(request, metrics));
         return true;
     }
 
+    private void forgetHold(String holdId) {
+        holdIndex.remove(holdId);
+        HashedTimerWheel.Timeout expiry = holdExpiries.remove(holdId);
+        if (expiry != null) {
+            expiry.cancel();
+        }
+    }
+
+    private HashedTimerWheel holdTimers() {
+        HashedTimerWheel timers = holdTimers;
+        if (timers == null) {
+            synchronized (this) {
+                if (holdTimers == null) {
+                    holdTimers = new HashedTimerWheel(timeProvider, HOLD_TICK, HOLD_WHEEL_SIZE);
+                }
+                timers = holdTimers;
+            }
+        }
+        return timers;
+    }
+
+    /**
+     * Puts a request for a taken interval on the room's waitlist and returns its id. As soon
+     * as a cancellation or a released hold frees the interval, the request is booked with
+     * that id and confirmed like any other booking; requests are promoted first come, first
+     * served. A request for a free interval is booked right away. Like holds, the waitlist
+     * is only kept in memory.
+     */
+    public String joinWaitlist(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        validateBooking(roomId, startTime, endTime, timeProvider);
+        expireHolds();
+
+        Booking request;
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+            request = new Booking(idGenerator.nextId(), roomId, startTime, endTime);
+            if (!room.isAvailable(startTime, endTime)) {
+                waitlist.removeStarted(roomId, timeProvider.getCurrentTime());
+                waitlist.add(request);
+                return request.getId();
+            }
+
+            room.addBooking(request);
+            persist(room, metrics);
+            bookingIndex.put(request.getId(), request);
+            bookingAdded(room, request);
+            publish(BookingEvent.Type.CREATED, request, null);
+        } finally {
+            lock.unlock();
+        }
+
+        sendBookingConfirmation(request, metrics);
+        return request.getId();
+    }
+
+    /**
+     * Withdraws a waiting request. Returns {@code false} if it is not waiting, for example
+     * because it has already been booked.
+     */
+    public boolean leaveWaitlist(String requestId) {
+        if (requestId == null) {
+            throw new IllegalArgumentException("Köplats-id kan inte vara null");
+        }
+        return waitlist.remove(requestId);
+    }
+
+    /**
+     * Returns the room's waiting requests in the order they will be considered. Requests
+     * whose start time has passed are dropped first.
+     */
+    public List<Booking> getWaitlist(String roomId) {
+        waitlist.removeStarted(roomId, timeProvider.getCurrentTime());
+        return waitlist.requests(roomId);
+    }
+
     public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
-            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        BookingMetrics metrics = this.metrics;
+        long started = metrics.startTimer();
+        try {
+            validateTimeRange(startTime, endTime);
+            expireHolds();
+
+            AvailabilityCache cache = availabilityCache;
+            long cacheVersion = 0;
+            if (cache != null) {
+                List<Room> cached = cache.get(startTime, endTime);
+                if (cached != null) {
+                    return new ArrayList<>(cached);
+                }
+                cacheVersion = cache.version();
+            }
+
+            long call = metrics.startTimer();
+            List<Room> rooms = roomRepository.findAll();
+            metrics.stopTimer(Operation.REPOSITORY_FIND_ALL, call);
+
+            List<Room> available = availableAmong(rooms, startTime, endTime, metrics);
+            if (cache != null) {
+                cache.put(startTime, endTime, available, cacheVersion, timeProvider.getCurrentTime());
+            }
+            return available;
+        } catch (IllegalArgumentException e) {
+            metrics.increment(Outcome.INVALID);
+            throw e;
+        } finally {
+            metrics.stopTimer(Operation.GET_AVAILABLE_ROOMS, started);
         }
+    }
 
-        if (endTime.isBefore(startTime)) {
-            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+    /**
+     * Returns the free rooms whose attributes match the filter. The matching rooms are
+     * resolved first with {@link RoomRepository#findByAttributes(RoomFilter)}, which an
+     * indexing repository answers without loading the others, so only matching rooms are
+     * checked for availability. A cached result for the window is narrowed with the filter
+     * instead; filtered results are not cached themselves.
+     */
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, RoomFilter filter) {
+        if (filter == null || filter.acceptsAll()) {
+            return getAvailableRooms(startTime, endTime);
         }
 
-        return roomRepository.findAll().stream()
-                .filter(room -> room.isAvailable(startTime, endTime))
-                .collect(Collectors.toList());
+        BookingMetrics metrics = this.metrics;
+        long started = metrics.startTimer();
+        try {
+            validateTimeRange(startTime, endTime);
+            expireHolds();
+
+            AvailabilityCache cache = availabilityCache;
+            if (cache != null) {
+                List<Room> cached = cache.get(startTime, endTime);
+                if (cached != null) {
+                    return cached.stream()
+                            .filter(filter)
+                            .collect(Collectors.toList());
+                }
+            }
+
+            long call = metrics.startTimer();
+            List<Room> rooms = roomRepository.findByAttributes(filter);
+            metrics.stopTimer(Operation.REPOSITORY_FIND_ALL, call);
+
+            return availableAmong(rooms, startTime, endTime, metrics);
+        } catch (IllegalArgumentException e) {
+            metrics.increment(Outcome.INVALID);
+            throw e;
+        } finally {
+            metrics.stopTimer(Operation.GET_AVAILABLE_ROOMS, started);
+        }
+    }
+
+    private List<Room> availableAmong(List<Room> rooms, LocalDateTime startTime, LocalDateTime endTime,
+                                      BookingMetrics metrics) {
+        long call = metrics.startTimer();
+        // Valfria komponenter läses en gång, en samtidig setter kan nollställa fältet
+        OccupancyIndex index = occupancyIndex;
+        Predicate<Room> free;
+        if (index == null) {
+            free = room -> room.isAvailable(startTime, endTime);
+        } else {
+            free = index.snapshot(startTime, endTime, rooms)::isAvailable;
+        }
+        ParallelAvailabilityCheck parallel = parallelCheck;
+        List<Room> available = parallel == null
+                ? rooms.stream().filter(free).collect(Collectors.toList())
+                : parallel.filter(rooms, free);
+        metrics.stopTimer(Operation.AVAILABILITY_CHECK, call);
+        return available;
+    }
+
+    /**
+     * Lazily streams the rooms free in the given interval. Rooms are pulled from
+     * {@link RoomRepository#streamAll()} one at a time, so a caller that only needs a few
+     * results stops the scan as soon as it has them.
+     */
+    public Stream<Room> streamAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        validateTimeRange(startTime, endTime);
+        expireHolds();
+
+        return roomRepository.streamAll()
+                .filter(room -> room.isAvailable(startTime, endTime));
+    }
+
+    /**
+     * Returns one page of free rooms, skipping the first {@code offset} free rooms.
+     * Scanning stops once the page is full.
+     */
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset och gräns kan inte vara negativa");
+        }
+
+        try (Stream<Room> rooms = streamAvailableRooms(startTime, endTime)) {
+            return rooms.skip(offset)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Finds the earliest slot of the given length, in any room accepted by the filter, that
+     * starts no earlier than {@code notBefore} (or now) and ends no later than {@code notAfter}.
+     * <p>
+     * Every room starts in a priority queue keyed by its earliest possible start. The room
+     * with the lowest key is checked with one interval-tree lookup: if the slot is free it
+     * is the answer, otherwise the room is re-queued with a start just past the blocking
+     * booking. Rooms that are free early are found without visiting the rest of their
+     * bookings. Since both ends of a booking are inclusive, a slot cannot start at the exact
+     * end of another booking; the search then continues at the next whole minute.
+     */
+    public Optional<AvailableSlot> findEarliestSlot(Duration duration, LocalDateTime notBefore,
+                                                    LocalDateTime notAfter, Predicate<Room> roomFilter) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Längden måste vara större än 0");
+        }
+        validateTimeRange(notBefore, notAfter);
+        expireHolds();
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        LocalDateTime earliest = notBefore.isBefore(now) ? now : notBefore;
+        Predicate<Room> filter = roomFilter == null ? room -> true : roomFilter;
+
+        record Candidate(LocalDateTime startTime, int order, Room room) {
+        }
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator
+                .comparing(Candidate::startTime)
+                .thenComparingInt(Candidate::order));
+        try (Stream<Room> rooms = roomRepository.streamAll()) {
+            rooms.filter(filter).forEach(room -> queue.add(new Candidate(earliest, queue.size(), room)));
+        }
+
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            LocalDateTime end = candidate.startTime().plus(duration);
+            if (end.isAfter(notAfter)) {
+                // Kön är sorterad på starttid, ingen annan kandidat kan heller få plats
+                return Optional.empty();
+            }
+            LocalDateTime blockedUntil = candidate.room().blockedUntil(candidate.startTime(), end);
+            if (blockedUntil == null) {
+                return Optional.of(new AvailableSlot(candidate.room(), candidate.startTime(), end));
+            }
+            LocalDateTime next = blockedUntil.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            queue.add(new Candidate(next, candidate.order(), candidate.room()));
+        }
+        return Optional.empty();
     }
 
     public boolean cancelBooking(String bookingId) {
+        BookingMetrics metrics = this.metrics;
+        long started = metrics.startTimer();
+        try {
+            boolean cancelled = cancel(bookingId, metrics);
+            metrics.increment(cancelled ? Outcome.CANCELLED : Outcome.NOT_CANCELLED);
+            return cancelled;
+        } catch (IllegalArgumentException e) {
+            metrics.increment(Outcome.INVALID);
+            throw e;
+        } finally {
+            metrics.stopTimer(Operation.CANCEL_BOOKING, started);
+        }
+    }
+
+    private boolean cancel(String bookingId, BookingMetrics metrics) {
         if (bookingId == null) {
             throw new IllegalArgumentException("Boknings-id kan inte vara null");
         }
 
-        Optional<Room> roomWithBooking = roomRepository.findAll().stream()
-                .filter(room -> room.hasBooking(bookingId))
-                .findFirst();
+        long call = metrics.startTimer();
+        Optional<Room> roomWithBooking = findRoomWithBooking(bookingId);
+        metrics.stopTimer(Operation.REPOSITORY_FIND, call);
 
         if (roomWithBooking.isEmpty()) {
+            BookingArchive archive = bookingArchive;
+            if (archive != null && archive.find(bookingId).isPresent()) {
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
             return false;
         }
 
-        Room room = roomWithBooking.get();
-        Booking booking = room.getBooking(bookingId);
+        // Bara rummets id används, rummet läses om under låset precis som vid bokning
+        String roomId = roomWithBooking.get().getId();
+        Room room;
+        Booking booking;
+        List<Booking> promoted;
+        Lock lock = roomLocks.forRoom(roomId);
+        lock.lock();
+        try {
+            call = metrics.startTimer();
+            Optional<Room> current = roomRepository.findById(roomId);
+            metrics.stopTimer(Operation.REPOSITORY_FIND, call);
+            // En annan tråd kan ha hunnit avboka mellan sökningen och låset
+            if (current.isEmpty() || !current.get().hasBooking(bookingId)) {
+                return false;
+            }
+            room = current.get();
+            booking = room.getBooking(bookingId);
+
+            if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
+
+            room.removeBooking(bookingId);
+            persist(room, metrics);
+            bookingIndex.remove(bookingId);
+            bookingRemoved(room, booking);
+            publish(BookingEvent.Type.CANCELLED, booking, null);
+            promoted = promoteWaitlisted(room, booking);
+        } finally {
+            lock.unlock();
+        }
+
+        sendCancellationConfirmation(booking, metrics);
+        promoted.forEach(request -> sendBookingConfirmation(request, metrics));
+        return true;
+    }
+
+    /**
+     * Moves bookings that ended more than {@code retention} ago out of their rooms and into
+     * the configured archive. Such bookings can never conflict with a new booking, since
+     * bookings in the past are rejected. Waitlist requests that have already started are
+     * dropped as well. Returns the number of archived bookings.
+     */
+    public int archiveFinishedBookings(Duration retention) {
+        BookingArchive archive = bookingArchive;
+        if (archive == null) {
+            throw new IllegalStateException("Inget bokningsarkiv är konfigurerat");
+        }
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Lagringstiden kan inte vara negativ");
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        LocalDateTime cutoff = now.minus(retention);
+        // Köade förfrågningar som redan har börjat kan aldrig bokas
+        waitlist.removeStarted(now);
+        int archived = 0;
+        for (Room listed : roomRepository.findAll()) {
+            Lock lock = roomLocks.forRoom(listed.getId());
+            lock.lock();
+            try {
+                // Rummet läses om under låset, annars kan en samtidig bokning skrivas över
+                Optional<Room> current = roomRepository.findById(listed.getId());
+                if (current.isEmpty()) {
+                    continue;
+                }
+                Room room = current.get();
+                List<Booking> finished = room.removeBookingsEndingBefore(cutoff);
+                if (finished.isEmpty()) {
+                    continue;
+                }
+                // Arkivera före save, ett fel ger hellre en dubblett än en förlorad bokning
+                archive.archive(finished);
+                persist(room, metrics);
+                for (Booking booking : finished) {
+                    bookingIndex.remove(booking.getId());
+                    bookingRemoved(room, booking);
+                }
+                archived += finished.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Brings the system up to date after rooms were changed directly in the repository,
+     * for example by {@link com.example.persistence.BookingTransfer} imports. The booking
+     * and series indexes are filled from every room, the occupancy index forgets its rooms
+     * so they are indexed again from their current bookings, and the availability cache is
+     * emptied. The system only tracks changes made through itself, so without this call
+     * such bookings can be missing from availability results until they are found by a
+     * repository scan.
+     */
+    public void reindex() {
+        // Inaktuella poster rensas inte här, uppslagningen i findRoomWithBooking tar bort dem
+        for (Room room : roomRepository.findAll()) {
+            for (Booking booking : room.getBookings()) {
+                bookingIndex.put(booking.getId(), booking);
+            }
+            for (RecurringBooking series : room.getSeries()) {
+                seriesIndex.put(series.getId(), room.getId());
+            }
+        }
+        OccupancyIndex index = occupancyIndex;
+        if (index != null) {
+            index.clear();
+        }
+        AvailabilityCache cache = availabilityCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Books the waiting requests that fit now that {@code freed} has been released, oldest
+     * first, and saves the room once. Only requests overlapping the freed interval are
+     * examined, since no other request can have become possible. Requests that have already
+     * started are dropped. Must be called with the room's lock held; the caller sends the
+     * confirmations of the returned bookings after unlocking.
+     */
+    private List<Booking> promoteWaitlisted(Room room, Booking freed) {
+        List<Booking> candidates = waitlist.overlapping(room.getId(), freed.getStartTime(), freed.getEndTime());
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        List<Booking> promoted = new ArrayList<>();
+        for (Booking request : candidates) {
+            if (request.getStartTime().isBefore(now)) {
+                waitlist.remove(request.getId());
+            } else if (room.isAvailable(request.getStartTime(), request.getEndTime())
+                    && waitlist.remove(request.getId())) {
+                room.addBooking(request);
+                promoted.add(request);
+            }
+        }
+        if (promoted.isEmpty()) {
+            return promoted;
+        }
+
+        persist(room, metrics);
+        for (Booking booking : promoted) {
+            bookingIndex.put(booking.getId(), booking);
+            bookingAdded(room, booking);
+            publish(BookingEvent.Type.CREATED, booking, null);
+            metrics.increment(Outcome.PROMOTED);
+        }
+        return promoted;
+    }
+
+    private void bookingAdded(Room room, Booking booking) {
+        OccupancyIndex index = occupancyIndex;
+        if (index != null) {
+            index.bookingAdded(room, booking);
+        }
+        invalidateAvailability(booking.getStartTime(), booking.getEndTime());
+    }
+
+    private void bookingRemoved(Room room, Booking booking) {
+        OccupancyIndex index = occupancyIndex;
+        if (index != null) {
+            index.bookingRemoved(room, booking);
+        }
+        invalidateAvailability(booking.getStartTime(), booking.getEndTime());
+    }
+
+    private void seriesAdded(Room room, RecurringBooking series) {
+        OccupancyIndex index = occupancyIndex;
+        if (index != null) {
+            index.seriesAdded(room, series);
+        }
+        invalidateAvailability(series.getStartTime(), series.getLastEndTime());
+    }
+
+    private void publish(BookingEvent.Type type, Booking booking, RecurringBooking series) {
+        BookingChangeFeed feed = changeFeed;
+        if (feed != null) {
+            feed.publish(type, booking, series);
+        }
+    }
+
+    private void invalidateAvailability(LocalDateTime startTime, LocalDateTime endTime) {
+        AvailabilityCache cache = availabilityCache;
+        if (cache != null) {
+            cache.invalidate(startTime, endTime);
+        }
+    }
 
-        if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+    /**
+     * Writes the room's changes through {@link RoomRepository#applyChanges} when the repository
+     * supports it and the delta covers every change, otherwise saves the whole room.
+     */
+    private void persist(Room room, BookingMetrics metrics) {
+        long started = metrics.startTimer();
+        Room.Changes changes = room.pendingChanges();
+        if (changes.requiresFullSave()
+                || !roomRepository.applyChanges(room.getId(), changes.added(), changes.removed())) {
+            roomRepository.save(room);
         }
+        room.markSaved();
+        metrics.stopTimer(Operation.REPOSITORY_SAVE, started);
+    }
 
-        room.removeBooking(bookingId);
-        roomRepository.save(room);
+    private void sendBookingConfirmation(Booking booking, BookingMetrics metrics) {
+        long started = metrics.startTimer();
+        try {
+            notificationService.sendBookingConfirmation(booking);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            metrics.increment(Outcome.NOTIFICATION_FAILED);
+        } finally {
+            metrics.stopTimer(Operation.NOTIFICATION_SEND, started);
+        }
+    }
 
+    private void sendCancellationConfirmation(Booking booking, BookingMetrics metrics) {
+        long started = metrics.startTimer();
         try {
             notificationService.sendCancellationConfirmation(booking);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
+            metrics.increment(Outcome.NOTIFICATION_FAILED);
+        } finally {
+            metrics.stopTimer(Operation.NOTIFICATION_SEND, started);
         }
+    }
 
-        return true;
+    static void validateBooking(String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                                TimeProvider timeProvider) {
+        if (startTime == null || endTime == null || roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+
+        if (startTime.isBefore(timeProvider.getCurrentTime())) {
+            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+        }
+
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    static void validateTimeRange(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    private Optional<Room> findRoomWithBooking(String bookingId) {
+        Booking indexed = bookingIndex.get(bookingId);
+        if (indexed != null) {
+            Optional<Room> room = roomRepository.findById(indexed.getRoomId())
+                    .filter(candidate -> candidate.hasBooking(bookingId));
+            if (room.isPresent()) {
+                return room;
+            }
+            // Indexet är inaktuellt, bokningen har ändrats utanför systemet
+            bookingIndex.remove(bookingId);
+        }
+
+        String seriesRoomId = seriesIndex.get(RecurringBooking.seriesIdOf(bookingId));
+        if (seriesRoomId != null) {
+            Optional<Room> room = roomRepository.findById(seriesRoomId)
+                    .filter(candidate -> candidate.hasBooking(bookingId));
+            if (room.isPresent()) {
+                return room;
+            }
+        }
+
+        Optional<Room> room = roomRepository.findByBookingId(bookingId);
+        if (room.isPresent()) {
+            return room;
+        }
+
+        return roomRepository.findAll().stream()
+                .filter(candidate -> candidate.hasBooking(bookingId))
+                .findFirst();
     }
 }
 
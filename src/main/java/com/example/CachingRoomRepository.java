@@ -0,0 +1,284 @@
+package com.example;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through caching decorator for a (typically remote) {@link RoomRepository}.
+ * <p>
+ * Rooms loaded by id are kept in a bounded cache evicted by LRU or LFU. {@link #save(Room)}
+ * writes through to the delegate and refreshes the cached room. {@link #findAll()} is
+ * served from a snapshot that any write invalidates. Hits, misses and evictions are
+ * counted so the cache can be sized from production numbers.
+ */
+public class CachingRoomRepository implements RoomRepository {
+
+    public enum EvictionPolicy {
+        LRU,
+        LFU
+    }
+
+    /**
+     * Point-in-time cache statistics.
+     */
+    public record Stats(long hits, long misses, long evictions, long snapshotHits, long snapshotMisses, int size) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    private final RoomRepository delegate;
+    private final Store store;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder snapshotHits = new LongAdder();
+    private final LongAdder snapshotMisses = new LongAdder();
+
+    // Räknas upp vid varje skrivning så att en långsam läsning inte kan skriva över nyare data
+    private long version;
+    private List<Room> snapshot;
+
+    public CachingRoomRepository(RoomRepository delegate, int maxSize, EvictionPolicy policy) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cachestorleken måste vara större än 0");
+        }
+        this.delegate = delegate;
+        this.store = policy == EvictionPolicy.LFU ? new LfuStore(maxSize) : new LruStore(maxSize);
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        long versionBeforeLoad;
+        synchronized (this) {
+            Room cached = store.get(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+            misses.increment();
+            versionBeforeLoad = version;
+        }
+
+        Optional<Room> loaded = delegate.findById(id);
+        loaded.ifPresent(room -> cacheIfUnchanged(room, versionBeforeLoad));
+        return loaded;
+    }
+
+    @Override
+    public List<Room> findAll() {
+        long versionBeforeLoad;
+        synchronized (this) {
+            if (snapshot != null) {
+                snapshotHits.increment();
+                return snapshot;
+            }
+            snapshotMisses.increment();
+            versionBeforeLoad = version;
+        }
+
+        List<Room> loaded = List.copyOf(delegate.findAll());
+        synchronized (this) {
+            if (version == versionBeforeLoad) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public void save(Room room) {
+        delegate.save(room);
+        synchronized (this) {
+            version++;
+            snapshot = null;
+            put(room);
+        }
+    }
+
+    /**
+     * Forwards the delta to the delegate and, like {@link #save(Room)}, counts as a write so
+     * that loads racing with it are not cached. Cached rooms are the objects the caller changed.
+     */
+    @Override
+    public boolean applyChanges(String roomId, Collection<Booking> added, Collection<String> removed) {
+        if (!delegate.applyChanges(roomId, added, removed)) {
+            return false;
+        }
+        synchronized (this) {
+            version++;
+            snapshot = null;
+        }
+        return true;
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        long versionBeforeLoad;
+        synchronized (this) {
+            versionBeforeLoad = version;
+        }
+        Optional<Room> loaded = delegate.findByBookingId(bookingId);
+        loaded.ifPresent(room -> cacheIfUnchanged(room, versionBeforeLoad));
+        return loaded;
+    }
+
+    @Override
+    public List<Room> findByAttributes(RoomFilter filter) {
+        return delegate.findByAttributes(filter);
+    }
+
+    /**
+     * Drops every cached room and the findAll snapshot, e.g. after the store was changed elsewhere.
+     */
+    public synchronized void invalidateAll() {
+        version++;
+        snapshot = null;
+        store.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(),
+                snapshotHits.sum(), snapshotMisses.sum(), store.size());
+    }
+
+    private synchronized void cacheIfUnchanged(Room room, long versionBeforeLoad) {
+        if (version == versionBeforeLoad) {
+            put(room);
+        }
+    }
+
+    private void put(Room room) {
+        if (store.put(room.getId(), room)) {
+            evictions.increment();
+        }
+    }
+
+    private interface Store {
+        Room get(String id);
+
+        /**
+         * Returns true if another room had to be evicted to make room.
+         */
+        boolean put(String id, Room room);
+
+        int size();
+
+        void clear();
+    }
+
+    private static final class LruStore implements Store {
+        private final int maxSize;
+        private final LinkedHashMap<String, Room> rooms = new LinkedHashMap<>(16, 0.75f, true);
+
+        private LruStore(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public Room get(String id) {
+            return rooms.get(id);
+        }
+
+        @Override
+        public boolean put(String id, Room room) {
+            rooms.put(id, room);
+            if (rooms.size() > maxSize) {
+                Iterator<String> eldest = rooms.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return rooms.size();
+        }
+
+        @Override
+        public void clear() {
+            rooms.clear();
+        }
+    }
+
+    private static final class LfuStore implements Store {
+        private final int maxSize;
+        private final Map<String, Entry> entries = new HashMap<>();
+        // Minst använda först, lika frekvens avgörs av äldst senaste användning
+        private final TreeSet<Entry> byFrequency = new TreeSet<>(Comparator
+                .comparingLong((Entry entry) -> entry.frequency)
+                .thenComparingLong(entry -> entry.lastUse));
+        private long clock;
+
+        private static final class Entry {
+            private final String id;
+            private Room room;
+            private long frequency;
+            private long lastUse;
+
+            private Entry(String id, Room room) {
+                this.id = id;
+                this.room = room;
+            }
+        }
+
+        private LfuStore(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        public Room get(String id) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                return null;
+            }
+            touch(entry);
+            return entry.room;
+        }
+
+        @Override
+        public boolean put(String id, Room room) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                entry.room = room;
+                touch(entry);
+                return false;
+            }
+
+            boolean evicted = false;
+            if (entries.size() >= maxSize) {
+                Entry victim = byFrequency.pollFirst();
+                entries.remove(victim.id);
+                evicted = true;
+            }
+            entry = new Entry(id, room);
+            entry.lastUse = ++clock;
+            entries.put(id, entry);
+            byFrequency.add(entry);
+            return evicted;
+        }
+
+        private void touch(Entry entry) {
+            byFrequency.remove(entry);
+            entry.frequency++;
+            entry.lastUse = ++clock;
+            byFrequency.add(entry);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+            byFrequency.clear();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel driven by a {@link TimeProvider} instead of a background thread.
+ * <p>
+ * Time is divided into ticks and every timeout is put in the slot of its deadline tick
+ * modulo the wheel size, so scheduling is O(1) and cancelling only touches one slot.
+ * {@link #advance()} reads the clock and visits only the slots of the ticks passed since
+ * the last call, firing
+ * timeouts whose deadline has come; timeouts further away than one turn of the wheel stay
+ * in their slot until a later turn. Timeouts fire at most one tick late. Tasks run on the
+ * thread calling {@link #advance()}, outside the wheel's lock.
+ */
+class HashedTimerWheel {
+
+    private final TimeProvider timeProvider;
+    private final long tickMillis;
+    private final ArrayDeque<Timeout>[] slots;
+    private final int mask;
+    private long currentTick;
+
+    /**
+     * A scheduled task that can be cancelled before it fires.
+     */
+    final class Timeout {
+        private final long deadlineTick;
+        private final Runnable task;
+        private boolean cancelled;
+
+        private Timeout(long deadlineTick, Runnable task) {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        void cancel() {
+            synchronized (HashedTimerWheel.this) {
+                if (!cancelled) {
+                    cancelled = true;
+                    slots[(int) (deadlineTick & mask)].remove(this);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    HashedTimerWheel(TimeProvider timeProvider, Duration tick, int wheelSize) {
+        if (tick.toMillis() < 1) {
+            throw new IllegalArgumentException("Tickets längd måste vara minst en millisekund");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Hjulets storlek måste vara en tvåpotens");
+        }
+        this.timeProvider = timeProvider;
+        this.tickMillis = tick.toMillis();
+        this.slots = (ArrayDeque<Timeout>[]) new ArrayDeque<?>[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.mask = wheelSize - 1;
+        this.currentTick = Math.floorDiv(millisOf(timeProvider.getCurrentTime()), tickMillis);
+    }
+
+    /**
+     * Schedules the task to run at the first {@link #advance()} at or after the deadline.
+     */
+    synchronized Timeout schedule(LocalDateTime deadline, Runnable task) {
+        long deadlineTick = Math.max(currentTick + 1, -Math.floorDiv(-millisOf(deadline), tickMillis));
+        Timeout timeout = new Timeout(deadlineTick, task);
+        slots[(int) (deadlineTick & mask)].add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Moves the wheel to the current time and runs every timeout that has come due.
+     * Returns the number of tasks run.
+     */
+    int advance() {
+        List<Runnable> due = new ArrayList<>();
+        synchronized (this) {
+            long nowTick = Math.floorDiv(millisOf(timeProvider.getCurrentTime()), tickMillis);
+            // Har mer än ett varv passerat räcker det att gå igenom varje fack en gång
+            long ticks = Math.min(nowTick - currentTick, slots.length);
+            for (long tick = nowTick - ticks + 1; tick <= nowTick; tick++) {
+                for (Iterator<Timeout> it = slots[(int) (tick & mask)].iterator(); it.hasNext(); ) {
+                    Timeout timeout = it.next();
+                    if (timeout.deadlineTick <= nowTick) {
+                        it.remove();
+                        timeout.cancelled = true;
+                        due.add(timeout.task);
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, nowTick);
+        }
+        due.forEach(Runnable::run);
+        return due.size();
+    }
+
+    synchronized int size() {
+        int size = 0;
+        for (ArrayDeque<Timeout> slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    private static long millisOf(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
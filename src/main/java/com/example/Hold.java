@@ -0,0 +1,20 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+/**
+ * A tentative reservation of a room that blocks availability like a booking until it is
+ * confirmed, released or expires. Holds live only in memory and are never saved or
+ * notified about. The held interval is kept as a {@link Booking} carrying the hold id,
+ * which becomes the booking id on confirmation.
+ */
+public record Hold(Booking booking, LocalDateTime expiresAt) {
+
+    public String id() {
+        return booking.getId();
+    }
+
+    public String roomId() {
+        return booking.getRoomId();
+    }
+}
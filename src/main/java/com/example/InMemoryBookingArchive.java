@@ -0,0 +1,30 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link BookingArchive} kept in memory, keyed by booking id.
+ */
+public class InMemoryBookingArchive implements BookingArchive {
+
+    private final Map<String, Booking> bookings = new ConcurrentHashMap<>();
+
+    @Override
+    public void archive(Collection<Booking> archived) {
+        for (Booking booking : archived) {
+            bookings.put(booking.getId(), booking);
+        }
+    }
+
+    @Override
+    public Optional<Booking> find(String bookingId) {
+        return Optional.ofNullable(bookings.get(bookingId));
+    }
+
+    public int size() {
+        return bookings.size();
+    }
+}
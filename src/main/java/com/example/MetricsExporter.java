@@ -0,0 +1,10 @@
+package com.example;
+
+/**
+ * Receives metric snapshots from {@link RecordingBookingMetrics#exportTo(MetricsExporter)},
+ * for example to publish them to a monitoring system.
+ */
+@FunctionalInterface
+public interface MetricsExporter {
+    void export(RecordingBookingMetrics.Snapshot snapshot);
+}
@@ -0,0 +1,20 @@
+package com.example;
+
+/**
+ * A single queued notification about a booking.
+ */
+public record Notification(Type type, Booking booking) {
+
+    public enum Type {
+        BOOKING_CONFIRMATION,
+        CANCELLATION_CONFIRMATION
+    }
+
+    void sendTo(NotificationService service) throws NotificationException {
+        if (type == Type.BOOKING_CONFIRMATION) {
+            service.sendBookingConfirmation(booking);
+        } else {
+            service.sendCancellationConfirmation(booking);
+        }
+    }
+}
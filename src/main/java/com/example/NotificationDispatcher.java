@@ -0,0 +1,188 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous front for a {@link NotificationService}.
+ * <p>
+ * Sends only put the notification on a bounded queue and return immediately, so a slow
+ * gateway no longer adds latency to {@link BookingSystem#bookRoom} or
+ * {@link BookingSystem#cancelBooking}. A virtual thread drains the queue in batches
+ * (one call per batch if the delegate is a {@link BatchNotificationService}) and retries
+ * failed notifications with exponential backoff. When the queue is full the notification
+ * is dropped and counted rather than blocking the caller.
+ */
+public class NotificationDispatcher implements NotificationService, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(200);
+
+    private final NotificationService delegate;
+    private final BlockingQueue<Envelope> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Thread worker;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicInteger pendingRetries = new AtomicInteger();
+    private volatile boolean closed;
+
+    private record Envelope(Notification notification, int attempt) {
+    }
+
+    public NotificationDispatcher(NotificationService delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF);
+    }
+
+    public NotificationDispatcher(NotificationService delegate, int capacity, int batchSize,
+                                  int maxAttempts, Duration initialBackoff) {
+        if (capacity <= 0 || batchSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Kapacitet, batchstorlek och antal försök måste vara större än 0");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.worker = Thread.ofVirtual().name("notification-dispatcher").start(this::run);
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) {
+        enqueue(new Envelope(new Notification(Notification.Type.BOOKING_CONFIRMATION, booking), 1));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) {
+        enqueue(new Envelope(new Notification(Notification.Type.CANCELLATION_CONFIRMATION, booking), 1));
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getRetryCount() {
+        return retried.sum();
+    }
+
+    /**
+     * Notifications given up on after the last retry attempt failed.
+     */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Notifications rejected because the queue was full or the dispatcher was closed.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Stops accepting notifications and waits for queued ones, including pending retries,
+     * to be delivered or given up on. If the calling thread is interrupted while waiting,
+     * it returns early with its interrupt flag set and delivery finishes in the background.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Envelope envelope) {
+        if (closed || !queue.offer(envelope)) {
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        List<Envelope> batch = new ArrayList<>(batchSize);
+        // Retries räknas ned först efter att de lagts i kön, så de måste läsas före kön
+        while (!closed || pendingRetries.get() > 0 || !queue.isEmpty()) {
+            try {
+                Envelope first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                deliver(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(List<Envelope> batch) {
+        if (delegate instanceof BatchNotificationService batchService) {
+            try {
+                batchService.sendBatch(batch.stream().map(Envelope::notification).toList());
+                sent.add(batch.size());
+            } catch (NotificationException | RuntimeException e) {
+                batch.forEach(this::retry);
+            }
+            return;
+        }
+
+        for (Envelope envelope : batch) {
+            try {
+                envelope.notification().sendTo(delegate);
+                sent.increment();
+            } catch (NotificationException | RuntimeException e) {
+                // Även oväntade fel från gatewayen ska gå till retry, annars dör arbetstråden
+                retry(envelope);
+            }
+        }
+    }
+
+    private void retry(Envelope envelope) {
+        if (envelope.attempt() >= maxAttempts) {
+            failed.increment();
+            System.err.println("Warning! Notification could not be sent after " + maxAttempts
+                    + " attempts: " + envelope.notification());
+            return;
+        }
+        retried.increment();
+        pendingRetries.incrementAndGet();
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(envelope.attempt() - 1, 20));
+        // Väntan sker på en egen virtuell tråd så att övriga notifieringar inte blockeras
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(backoff);
+                if (!queue.offer(new Envelope(envelope.notification(), envelope.attempt() + 1))) {
+                    dropped.increment();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+            } finally {
+                pendingRetries.decrementAndGet();
+            }
+        });
+    }
+}
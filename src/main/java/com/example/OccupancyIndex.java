@@ -0,0 +1,244 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-bucketed occupancy bitmap used by {@link BookingSystem#getAvailableRooms}.
+ * <p>
+ * Time is split into fixed buckets (15 minutes by default) over a rolling horizon.
+ * For every bucket the index keeps one bitset of rooms with any booking touching the
+ * bucket and one of rooms booked for the whole bucket. A range query ORs the bitsets
+ * of the buckets it spans: rooms outside the "touched" union are free, rooms fully
+ * booked in a bucket inside the range are busy, and only the remaining rooms (those
+ * touching the partial buckets at the edges) are checked exactly with
+ * {@link Room#isAvailable(LocalDateTime, LocalDateTime)}.
+ * <p>
+ * Rooms are registered lazily the first time they are queried, and the index is kept
+ * current by {@link BookingSystem} when bookings are added or removed through it.
+ */
+public class OccupancyIndex {
+
+    public static final Duration DEFAULT_BUCKET_SIZE = Duration.ofMinutes(15);
+    public static final Duration DEFAULT_HORIZON = Duration.ofDays(14);
+
+    private final TimeProvider timeProvider;
+    private final long bucketSeconds;
+    private final long horizonBuckets;
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    // Första bucket som INTE är indexerad för respektive rum (index = ordinal)
+    private long[] coveredUntil = new long[16];
+    private final NavigableMap<Long, Bucket> buckets = new TreeMap<>();
+    private long prunedBefore = Long.MIN_VALUE;
+
+    private static final class Bucket {
+        private final BitSet touched = new BitSet();
+        private final BitSet covered = new BitSet();
+    }
+
+    public OccupancyIndex(TimeProvider timeProvider) {
+        this(timeProvider, DEFAULT_BUCKET_SIZE, DEFAULT_HORIZON);
+    }
+
+    public OccupancyIndex(TimeProvider timeProvider, Duration bucketSize, Duration horizon) {
+        if (bucketSize.toSeconds() < 1 || bucketSize.toNanosPart() != 0) {
+            throw new IllegalArgumentException("Bucketstorlek måste vara ett helt antal sekunder");
+        }
+        if (horizon.compareTo(bucketSize) < 0) {
+            throw new IllegalArgumentException("Horisonten måste vara minst en bucket");
+        }
+        this.timeProvider = timeProvider;
+        this.bucketSeconds = bucketSize.toSeconds();
+        this.horizonBuckets = horizon.toSeconds() / bucketSeconds;
+    }
+
+    /**
+     * Prepares an availability check of the given rooms for one time window.
+     * Rooms not yet registered, or whose index does not reach the window, are
+     * (re)indexed up to the horizon before the bucket bitsets are combined.
+     */
+    public synchronized Snapshot snapshot(LocalDateTime startTime, LocalDateTime endTime, Collection<Room> rooms) {
+        long nowBucket = bucketOf(timeProvider.getCurrentTime());
+        prune(nowBucket);
+
+        long firstBucket = bucketOf(startTime);
+        long lastBucket = bucketOf(endTime);
+        if (firstBucket < prunedBefore) {
+            return new Snapshot(startTime, endTime, null, null, null);
+        }
+
+        long horizonEnd = nowBucket + horizonBuckets;
+        BitSet indexed = new BitSet();
+        for (Room room : rooms) {
+            int ordinal = register(room);
+            if (coveredUntil[ordinal] <= lastBucket) {
+                extend(room, ordinal, horizonEnd);
+            }
+            if (coveredUntil[ordinal] > lastBucket) {
+                indexed.set(ordinal);
+            }
+        }
+
+        BitSet touched = new BitSet();
+        BitSet covered = new BitSet();
+        for (Map.Entry<Long, Bucket> entry : buckets.subMap(firstBucket, true, lastBucket, true).entrySet()) {
+            Bucket bucket = entry.getValue();
+            touched.or(bucket.touched);
+            long bucketNumber = entry.getKey();
+            if (!startOf(bucketNumber).isBefore(startTime) && !lastInstantOf(bucketNumber).isAfter(endTime)) {
+                covered.or(bucket.covered);
+            }
+        }
+        return new Snapshot(startTime, endTime, indexed, touched, covered);
+    }
+
+    synchronized void bookingAdded(Room room, Booking booking) {
+        Integer ordinal = ordinals.get(room.getId());
+        if (ordinal == null) {
+            return;
+        }
+        mark(ordinal, booking, prunedBefore, coveredUntil[ordinal]);
+    }
+
+    synchronized void seriesAdded(Room room, RecurringBooking series) {
+        Integer ordinal = ordinals.get(room.getId());
+        if (ordinal == null || coveredUntil[ordinal] <= prunedBefore) {
+            return;
+        }
+        long from = prunedBefore;
+        long until = coveredUntil[ordinal];
+        // Bara förekomster inom det indexerade fönstret materialiseras
+        series.forEachOverlap(startOf(from), lastInstantOf(until - 1), booking -> mark(ordinal, booking, from, until));
+    }
+
+    synchronized void bookingRemoved(Room room, Booking booking) {
+        Integer ordinal = ordinals.get(room.getId());
+        if (ordinal == null) {
+            return;
+        }
+        long from = Math.max(prunedBefore, bucketOfSecond(booking.startSecond()));
+        long to = Math.min(bucketOfSecond(booking.endSecond()) + 1, coveredUntil[ordinal]);
+        for (long bucketNumber = from; bucketNumber < to; bucketNumber++) {
+            Bucket bucket = buckets.get(bucketNumber);
+            if (bucket == null) {
+                continue;
+            }
+            // Andra bokningar kan fortfarande beröra bucketen, räkna om från rummet
+            bucket.touched.set(ordinal, !room.isAvailable(startOf(bucketNumber), lastInstantOf(bucketNumber)));
+            bucket.covered.clear(ordinal);
+        }
+    }
+
+    /**
+     * Forgets every registered room, so each room is indexed again from its current
+     * bookings the next time it is queried.
+     */
+    synchronized void clear() {
+        ordinals.clear();
+        coveredUntil = new long[16];
+        buckets.clear();
+    }
+
+    private int register(Room room) {
+        Integer existing = ordinals.get(room.getId());
+        if (existing != null) {
+            return existing;
+        }
+        int ordinal = ordinals.size();
+        if (ordinal == coveredUntil.length) {
+            coveredUntil = Arrays.copyOf(coveredUntil, ordinal * 2);
+        }
+        coveredUntil[ordinal] = prunedBefore;
+        ordinals.put(room.getId(), ordinal);
+        return ordinal;
+    }
+
+    private void extend(Room room, int ordinal, long untilBucket) {
+        long from = Math.max(coveredUntil[ordinal], prunedBefore);
+        if (from >= untilBucket) {
+            return;
+        }
+        LocalDateTime rangeStart = startOf(from);
+        LocalDateTime rangeEnd = lastInstantOf(untilBucket - 1);
+        for (Booking booking : room.blockingOverlapping(rangeStart, rangeEnd)) {
+            mark(ordinal, booking, from, untilBucket);
+        }
+        coveredUntil[ordinal] = untilBucket;
+    }
+
+    private void mark(int ordinal, Booking booking, long fromBucket, long untilBucket) {
+        long first = Math.max(fromBucket, bucketOfSecond(booking.startSecond()));
+        long last = Math.min(untilBucket - 1, bucketOfSecond(booking.endSecond()));
+        for (long bucketNumber = first; bucketNumber <= last; bucketNumber++) {
+            Bucket bucket = buckets.computeIfAbsent(bucketNumber, key -> new Bucket());
+            bucket.touched.set(ordinal);
+            long bucketStart = bucketNumber * bucketSeconds;
+            // Bokningen täcker hela bucketen om den börjar senast vid start och slutar tidigast vid sista nanosekunden
+            if (Booking.compare(booking.startSecond(), booking.startNano(), bucketStart, 0) <= 0
+                    && Booking.compare(booking.endSecond(), booking.endNano(), bucketStart + bucketSeconds - 1, 999_999_999) >= 0) {
+                bucket.covered.set(ordinal);
+            }
+        }
+    }
+
+    private void prune(long nowBucket) {
+        if (nowBucket > prunedBefore) {
+            buckets.headMap(nowBucket, false).clear();
+            prunedBefore = nowBucket;
+        }
+    }
+
+    private long bucketOf(LocalDateTime time) {
+        return bucketOfSecond(time.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    private long bucketOfSecond(long epochSecond) {
+        return Math.floorDiv(epochSecond, bucketSeconds);
+    }
+
+    private LocalDateTime startOf(long bucketNumber) {
+        return LocalDateTime.ofEpochSecond(bucketNumber * bucketSeconds, 0, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime lastInstantOf(long bucketNumber) {
+        return startOf(bucketNumber + 1).minusNanos(1);
+    }
+
+    /**
+     * Result of combining the bucket bitsets for one query window.
+     */
+    public final class Snapshot {
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final BitSet indexed;
+        private final BitSet touched;
+        private final BitSet covered;
+
+        private Snapshot(LocalDateTime startTime, LocalDateTime endTime,
+                         BitSet indexed, BitSet touched, BitSet covered) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.indexed = indexed;
+            this.touched = touched;
+            this.covered = covered;
+        }
+
+        public boolean isAvailable(Room room) {
+            Integer ordinal = ordinals.get(room.getId());
+            if (indexed == null || ordinal == null || !indexed.get(ordinal)) {
+                return room.isAvailable(startTime, endTime);
+            }
+            if (!touched.get(ordinal)) {
+                return true;
+            }
+            if (covered.get(ordinal)) {
+                return false;
+            }
+            return room.isAvailable(startTime, endTime);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+/**
+ * Fork/join evaluation of an availability check over many rooms, used by
+ * {@link BookingSystem#getAvailableRooms} once a query covers at least {@code threshold}
+ * rooms. Smaller queries stay on the calling thread, where splitting would cost more than
+ * it saves.
+ * <p>
+ * The rooms are split in halves down to leaves of a few slices per worker, each leaf marks
+ * its free rooms in a shared array, and the result is collected in the original order.
+ * The work runs in the pool given by the caller, not in the common pool, so a large query
+ * cannot starve parallel streams and other common-pool work in the application.
+ */
+class ParallelAvailabilityCheck {
+
+    // Så många delar per arbetstråd att ojämnt bokade rum ändå fördelas jämnt
+    private static final int SLICES_PER_WORKER = 4;
+    private static final int MIN_LEAF_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    ParallelAvailabilityCheck(ForkJoinPool pool, int threshold) {
+        if (pool == null) {
+            throw new IllegalArgumentException("En trådpool måste anges");
+        }
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Tröskeln måste vara minst 1");
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    List<Room> filter(List<Room> rooms, Predicate<Room> available) {
+        if (rooms.size() < threshold) {
+            List<Room> result = new ArrayList<>();
+            for (Room room : rooms) {
+                if (available.test(room)) {
+                    result.add(room);
+                }
+            }
+            return result;
+        }
+
+        Room[] candidates = rooms.toArray(new Room[0]);
+        boolean[] free = new boolean[candidates.length];
+        int leafSize = Math.max(MIN_LEAF_SIZE, candidates.length / (pool.getParallelism() * SLICES_PER_WORKER));
+        pool.invoke(new Check(candidates, free, available, 0, candidates.length, leafSize));
+
+        List<Room> result = new ArrayList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            if (free[i]) {
+                result.add(candidates[i]);
+            }
+        }
+        return result;
+    }
+
+    // Uppgifterna körs bara i poolen och serialiseras aldrig
+    @SuppressWarnings("serial")
+    private static final class Check extends RecursiveAction {
+        private final Room[] rooms;
+        private final boolean[] free;
+        private final Predicate<Room> available;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        private Check(Room[] rooms, boolean[] free, Predicate<Room> available, int from, int to, int leafSize) {
+            this.rooms = rooms;
+            this.free = free;
+            this.available = available;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    free[i] = available.test(rooms[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Check(rooms, free, available, from, middle, leafSize),
+                    new Check(rooms, free, available, middle, to, leafSize));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Front for several independent {@link BookingSystem} shards, each owning the rooms whose
+ * id hashes to it and typically backed by its own repository.
+ * <p>
+ * Bookings are routed straight to the owning shard. Availability queries fan out to all
+ * shards in parallel, each on the shard's own executor, and the results are concatenated
+ * in shard order. Every shard is given an id generator that prefixes its booking ids with
+ * the shard number, so a cancellation is routed by looking at the id alone, without a
+ * shared lookup table. Ids without a known prefix (created outside this front) are tried
+ * on every shard.
+ */
+public class PartitionedBookingSystem implements AutoCloseable {
+
+    private static final char SHARD_SEPARATOR = '-';
+
+    private final List<BookingSystem> shards;
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    /**
+     * Creates a front for the given shards and replaces their id generators with
+     * shard-prefixed ones. Rooms must be stored in the repository of {@link #shardOf(String)}.
+     */
+    public PartitionedBookingSystem(List<BookingSystem> shards) {
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("Minst en shard krävs");
+        }
+        this.shards = List.copyOf(shards);
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            String prefix = "p" + shard + SHARD_SEPARATOR;
+            TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+            this.shards.get(shard).setBookingIdGenerator(() -> prefix + ids.nextId());
+            ThreadFactory threads = Thread.ofVirtual().name("booking-shard-" + shard + "-", 0).factory();
+            executors.add(Executors.newThreadPerTaskExecutor(threads));
+        }
+    }
+
+    /**
+     * Returns the shard owning the room.
+     */
+    public int shardOf(String roomId) {
+        int hash = roomId.hashCode();
+        // Sprid de höga bitarna så att liknande id inte hamnar i samma shard
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+        return shards.get(shardOf(roomId)).bookRoom(roomId, startTime, endTime);
+    }
+
+    /**
+     * Queries every shard in parallel and returns the free rooms of all shards, grouped by shard.
+     */
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Future<List<Room>>> results = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            BookingSystem system = shards.get(shard);
+            results.add(executors.get(shard).submit(() -> system.getAvailableRooms(startTime, endTime)));
+        }
+
+        List<Room> available = new ArrayList<>();
+        for (Future<List<Room>> result : results) {
+            available.addAll(await(result));
+        }
+        return available;
+    }
+
+    public boolean cancelBooking(String bookingId) {
+        if (bookingId == null) {
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
+        }
+        int shard = shardOfBooking(bookingId);
+        if (shard >= 0) {
+            return shards.get(shard).cancelBooking(bookingId);
+        }
+        for (BookingSystem system : shards) {
+            if (system.cancelBooking(bookingId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        executors.forEach(ExecutorService::close);
+    }
+
+    private int shardOfBooking(String bookingId) {
+        int separator = bookingId.indexOf(SHARD_SEPARATOR);
+        if (bookingId.isEmpty() || bookingId.charAt(0) != 'p' || separator < 2) {
+            return -1;
+        }
+        try {
+            int shard = Integer.parseInt(bookingId, 1, separator, 10);
+            return shard < shards.size() ? shard : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static <T> T await(Future<T> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Avbruten i väntan på shard", e);
+        } catch (ExecutionException e) {
+            // Valideringsfel och liknande kastas vidare som om anropet gjorts direkt
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Shard-anropet misslyckades", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link BookingMetrics} keeping a latency histogram per {@link Operation} and a counter
+ * per {@link Outcome}. Recording is lock-free, so concurrent bookings never wait on metrics.
+ */
+public class RecordingBookingMetrics implements BookingMetrics {
+
+    /**
+     * Latency distribution of one operation in nanoseconds.
+     */
+    public record LatencySummary(long count, double meanNanos, long p50Nanos, long p90Nanos,
+                                 long p99Nanos, long maxNanos) {
+    }
+
+    /**
+     * Point-in-time view of all latencies and outcome counts.
+     */
+    public record Snapshot(Map<Operation, LatencySummary> latencies, Map<Outcome, Long> outcomes) {
+
+        public long outcome(Outcome outcome) {
+            return outcomes.getOrDefault(outcome, 0L);
+        }
+    }
+
+    private final Map<Operation, LatencyHistogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Outcome, LongAdder> counters = new EnumMap<>(Outcome.class);
+
+    public RecordingBookingMetrics() {
+        // Alla mätare skapas i förväg så att kartorna bara läses efter konstruktorn
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+        for (Outcome outcome : Outcome.values()) {
+            counters.put(outcome, new LongAdder());
+        }
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public void stopTimer(Operation operation, long startNanos) {
+        histograms.get(operation).record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public void increment(Outcome outcome) {
+        counters.get(outcome).increment();
+    }
+
+    public Snapshot snapshot() {
+        Map<Operation, LatencySummary> latencies = new EnumMap<>(Operation.class);
+        for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            latencies.put(entry.getKey(), new LatencySummary(histogram.count(), histogram.mean(),
+                    histogram.valueAtPercentile(50), histogram.valueAtPercentile(90),
+                    histogram.valueAtPercentile(99), histogram.max()));
+        }
+        Map<Outcome, Long> outcomes = new EnumMap<>(Outcome.class);
+        for (Map.Entry<Outcome, LongAdder> entry : counters.entrySet()) {
+            outcomes.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new Snapshot(Collections.unmodifiableMap(latencies), Collections.unmodifiableMap(outcomes));
+    }
+
+    /**
+     * Hands a snapshot to the exporter. Call it periodically to publish metrics.
+     */
+    public void exportTo(MetricsExporter exporter) {
+        exporter.export(snapshot());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How a {@link RecurringBooking} repeats: every {@code interval} days or weeks, for a
+ * fixed number of occurrences, skipping occurrences that fall on an excepted date.
+ */
+public record RecurrenceRule(Frequency frequency, int interval, int occurrences, Set<LocalDate> exceptions) {
+
+    public enum Frequency {
+        DAILY(1),
+        WEEKLY(7);
+
+        private final int days;
+
+        Frequency(int days) {
+            this.days = days;
+        }
+    }
+
+    public RecurrenceRule {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Frekvens måste anges");
+        }
+        if (interval <= 0 || occurrences <= 0) {
+            throw new IllegalArgumentException("Intervall och antal förekomster måste vara större än 0");
+        }
+        exceptions = exceptions == null ? Set.of() : Set.copyOf(exceptions);
+    }
+
+    public static RecurrenceRule daily(int occurrences) {
+        return new RecurrenceRule(Frequency.DAILY, 1, occurrences, Set.of());
+    }
+
+    public static RecurrenceRule weekly(int occurrences) {
+        return new RecurrenceRule(Frequency.WEEKLY, 1, occurrences, Set.of());
+    }
+
+    /**
+     * Returns a copy repeating every {@code interval} days or weeks instead of every one.
+     */
+    public RecurrenceRule every(int interval) {
+        return new RecurrenceRule(frequency, interval, occurrences, exceptions);
+    }
+
+    /**
+     * Returns a copy that also skips occurrences starting on the given dates.
+     */
+    public RecurrenceRule except(LocalDate... dates) {
+        Set<LocalDate> combined = new HashSet<>(exceptions);
+        combined.addAll(List.of(dates));
+        return new RecurrenceRule(frequency, interval, occurrences, combined);
+    }
+
+    long stepDays() {
+        return (long) frequency.days * interval;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.function.Consumer;
+
+/**
+ * A series of equally long bookings of one room repeating by a {@link RecurrenceRule}.
+ * <p>
+ * The series is stored as its first occurrence plus the rule, however many occurrences it
+ * has. Occurrence {@code k} starts {@code k} steps after the first one, so overlap checks
+ * compute the few occurrences that can touch an interval instead of scanning them all.
+ * Occurrences are only materialized as {@link Booking} objects when they are listed or
+ * looked up, and get the id {@code <series id>#<k>}.
+ * <p>
+ * Instances are immutable; cancelling one occurrence creates a copy with the occurrence's
+ * date added to the rule's exceptions.
+ */
+public final class RecurringBooking {
+
+    private static final char OCCURRENCE_SEPARATOR = '#';
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final String id;
+    private final String roomId;
+    private final RecurrenceRule rule;
+    private final long startSecond;
+    private final long endSecond;
+    private final int startNano;
+    private final int endNano;
+    private final long stepSeconds;
+    // Förekomster som undantagits, indexerade på förekomstnummer
+    private final BitSet skipped = new BitSet();
+
+    public RecurringBooking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                            RecurrenceRule rule) {
+        if (id == null || roomId == null || startTime == null || endTime == null || rule == null) {
+            throw new IllegalArgumentException("Återkommande bokning kräver id, rum-id, tider och regel");
+        }
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+        this.id = id;
+        this.roomId = roomId.intern();
+        this.rule = rule;
+        this.startSecond = startTime.toEpochSecond(ZoneOffset.UTC);
+        this.startNano = startTime.getNano();
+        this.endSecond = endTime.toEpochSecond(ZoneOffset.UTC);
+        this.endNano = endTime.getNano();
+        this.stepSeconds = rule.stepDays() * SECONDS_PER_DAY;
+        // Båda ändar är inklusiva, så en förekomst måste sluta före nästa börjar
+        if (Booking.compare(endSecond, endNano, startSecond + stepSeconds, startNano) >= 0) {
+            throw new IllegalArgumentException("Varje förekomst måste vara kortare än intervallet");
+        }
+
+        long firstDay = startTime.toLocalDate().toEpochDay();
+        for (LocalDate date : rule.exceptions()) {
+            long days = date.toEpochDay() - firstDay;
+            if (days >= 0 && days % rule.stepDays() == 0 && days / rule.stepDays() < rule.occurrences()) {
+                skipped.set((int) (days / rule.stepDays()));
+            }
+        }
+    }
+
+    /**
+     * Returns the series id part of a booking id, or the id itself if it is not an occurrence id.
+     */
+    public static String seriesIdOf(String bookingId) {
+        int separator = bookingId.lastIndexOf(OCCURRENCE_SEPARATOR);
+        return separator < 0 ? bookingId : bookingId.substring(0, separator);
+    }
+
+    /**
+     * Returns the occurrence number encoded in a booking id, or -1 if it is not an occurrence id.
+     */
+    static int occurrenceIndexOf(String bookingId) {
+        int separator = bookingId.lastIndexOf(OCCURRENCE_SEPARATOR);
+        if (separator < 0 || separator == bookingId.length() - 1) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(bookingId, separator + 1, bookingId.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    public LocalDateTime getStartTime() {
+        return LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
+    }
+
+    public LocalDateTime getEndTime() {
+        return LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the end of the last occurrence, whether or not it is excepted.
+     */
+    public LocalDateTime getLastEndTime() {
+        return LocalDateTime.ofEpochSecond(endSecond + lastIndex() * stepSeconds, endNano, ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the given occurrence, or {@code null} if it is out of range or excepted.
+     */
+    public Booking getOccurrence(int index) {
+        if (index < 0 || index >= rule.occurrences() || skipped.get(index)) {
+            return null;
+        }
+        return occurrence(index);
+    }
+
+    /**
+     * Returns a copy of this series without the given occurrence.
+     */
+    RecurringBooking withoutOccurrence(int index) {
+        LocalDate date = LocalDateTime.ofEpochSecond(startSecond + index * stepSeconds, startNano, ZoneOffset.UTC)
+                .toLocalDate();
+        return new RecurringBooking(id, roomId, getStartTime(), getEndTime(), rule.except(date));
+    }
+
+    /**
+     * Returns one occurrence overlapping the given interval, or {@code null} if none does.
+     */
+    Booking findOverlap(long querySecond, int queryNano, long queryEndSecond, int queryEndNano) {
+        for (long index = firstEndingAtOrAfter(querySecond, queryNano); index <= lastIndex(); index++) {
+            if (Booking.compare(startSecond + index * stepSeconds, startNano, queryEndSecond, queryEndNano) > 0) {
+                return null;
+            }
+            if (!skipped.get((int) index)) {
+                return occurrence((int) index);
+            }
+        }
+        return null;
+    }
+
+    Booking findOverlap(LocalDateTime start, LocalDateTime end) {
+        return findOverlap(start.toEpochSecond(ZoneOffset.UTC), start.getNano(),
+                end.toEpochSecond(ZoneOffset.UTC), end.getNano());
+    }
+
+    /**
+     * Visits every occurrence overlapping the given interval in start-time order.
+     */
+    void forEachOverlap(LocalDateTime start, LocalDateTime end, Consumer<Booking> action) {
+        long queryEndSecond = end.toEpochSecond(ZoneOffset.UTC);
+        int queryEndNano = end.getNano();
+        for (long index = firstEndingAtOrAfter(start.toEpochSecond(ZoneOffset.UTC), start.getNano());
+             index <= lastIndex(); index++) {
+            if (Booking.compare(startSecond + index * stepSeconds, startNano, queryEndSecond, queryEndNano) > 0) {
+                return;
+            }
+            if (!skipped.get((int) index)) {
+                action.accept(occurrence((int) index));
+            }
+        }
+    }
+
+    /**
+     * Checks whether any occurrence of this series overlaps any occurrence of the other.
+     * Only occurrences of this series within the other's span are checked.
+     */
+    boolean overlaps(RecurringBooking other) {
+        long otherEndSecond = other.endSecond + other.lastIndex() * other.stepSeconds;
+        for (long index = firstEndingAtOrAfter(other.startSecond, other.startNano); index <= lastIndex(); index++) {
+            long occurrenceStart = startSecond + index * stepSeconds;
+            if (Booking.compare(occurrenceStart, startNano, otherEndSecond, other.endNano) > 0) {
+                return false;
+            }
+            if (!skipped.get((int) index) && other.findOverlap(occurrenceStart, startNano,
+                    endSecond + index * stepSeconds, endNano) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long firstEndingAtOrAfter(long second, int nano) {
+        long index = Math.max(0, Math.floorDiv(second - endSecond, stepSeconds));
+        // Heltalsdivisionen kan hamna en förekomst för tidigt när nanosekunderna skiljer
+        while (index <= lastIndex() && Booking.compare(endSecond + index * stepSeconds, endNano, second, nano) < 0) {
+            index++;
+        }
+        return index;
+    }
+
+    private long lastIndex() {
+        return rule.occurrences() - 1L;
+    }
+
+    private Booking occurrence(int index) {
+        long offset = index * stepSeconds;
+        return new Booking(id + OCCURRENCE_SEPARATOR + index, roomId,
+                LocalDateTime.ofEpochSecond(startSecond + offset, startNano, ZoneOffset.UTC),
+                LocalDateTime.ofEpochSecond(endSecond + offset, endNano, ZoneOffset.UTC));
+    }
+}
@@ -1,43 +1,330 @@
 package com.example;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * A bookable room with its bookings, recurring series and holds.
+ * <p>
+ * The room tracks which bookings were added and removed since it was last
+ * {@link #markSaved() marked saved}, so that a repository can write only the difference
+ * through {@link RoomRepository#applyChanges}. Whoever persists the room marks it saved
+ * afterwards; {@link BookingSystem} does so for every change it makes, and repositories do
+ * so for rooms they store whole or load from their store. A room changed by a caller that
+ * never persists it stops tracking after {@value #MAX_TRACKED_CHANGES} changes and instead
+ * reports that it needs a full save, so the delta cannot grow without bound.
+ */
 public class Room {
+
+    static final int MAX_TRACKED_CHANGES = 1024;
+
+    /**
+     * Booking changes since the room was last marked saved. Removals happen before additions,
+     * so a booking removed and added again with the same id ends up added. If
+     * {@code truncated} is set, more changes were made than the room tracks and the lists are
+     * empty; the room must then be saved whole.
+     */
+    public record Changes(List<Booking> added, Set<String> removed, boolean seriesChanged, boolean truncated) {
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && !seriesChanged && !truncated;
+        }
+
+        /**
+         * Returns whether the changes cannot be written as a delta of single bookings.
+         */
+        public boolean requiresFullSave() {
+            return seriesChanged || truncated;
+        }
+    }
+
     private final String id;
     private final String name;
-    private final Set<Booking> bookings = new HashSet<>();
+    private final RoomAttributes attributes;
+    private final Map<String, Booking> bookingsById = new HashMap<>();
+    private final BookingIntervalTree bookings = new BookingIntervalTree();
+    // Återkommande serier lagras som en regel var, förekomsterna räknas fram vid behov
+    private final Map<String, RecurringBooking> seriesById = new HashMap<>();
+    // Tillfälliga reservationer, blockerar som bokningar men sparas aldrig
+    private final Map<String, Hold> holdsById = new HashMap<>();
+    private final BookingIntervalTree heldIntervals = new BookingIntervalTree();
+    // Ändringar sedan senaste sparning, så att repositoryn kan skriva bara skillnaden
+    private final Map<String, Booking> addedSinceSave = new LinkedHashMap<>();
+    private final Set<String> removedSinceSave = new LinkedHashSet<>();
+    private boolean seriesChangedSinceSave;
+    private boolean changesTruncated;
 
     public Room(String id, String name) {
+        this(id, name, RoomAttributes.NONE);
+    }
+
+    public Room(String id, String name, RoomAttributes attributes) {
         this.id = id;
         this.name = name;
+        this.attributes = attributes == null ? RoomAttributes.NONE : attributes;
+    }
+
+    public synchronized boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
+        return findConflict(startTime, endTime) == null;
+    }
+
+    /**
+     * Checks that no occurrence of the series overlaps a booking or another series in the room.
+     * Only bookings within the series' span are visited.
+     */
+    public synchronized boolean isAvailable(RecurringBooking series) {
+        for (Booking booking : bookingsInTree(series.getStartTime(), series.getLastEndTime())) {
+            if (series.findOverlap(booking.getStartTime(), booking.getEndTime()) != null) {
+                return false;
+            }
+        }
+        for (RecurringBooking other : seriesById.values()) {
+            if (!other.getId().equals(series.getId()) && series.overlaps(other)) {
+                return false;
+            }
+        }
+        for (Hold hold : holdsById.values()) {
+            if (series.findOverlap(hold.booking().getStartTime(), hold.booking().getEndTime()) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void addBooking(Booking booking) {
+        Booking previous = bookingsById.put(booking.getId(), booking);
+        if (previous != null) {
+            bookings.remove(previous);
+        }
+        bookings.insert(booking);
+        trackAdded(booking);
+    }
+
+    /**
+     * Removes a booking, or a single occurrence of a series given its occurrence id.
+     */
+    public synchronized void removeBooking(String bookingId) {
+        Booking removed = bookingsById.remove(bookingId);
+        if (removed != null) {
+            bookings.remove(removed);
+            trackRemoved(bookingId);
+            return;
+        }
+        RecurringBooking series = seriesById.get(RecurringBooking.seriesIdOf(bookingId));
+        int index = RecurringBooking.occurrenceIndexOf(bookingId);
+        if (series != null && series.getOccurrence(index) != null) {
+            seriesById.put(series.getId(), series.withoutOccurrence(index));
+            seriesChangedSinceSave = true;
+        }
+    }
+
+    public synchronized boolean hasBooking(String bookingId) {
+        return findBooking(bookingId) != null;
+    }
+
+    public synchronized Booking getBooking(String bookingId) {
+        Booking booking = findBooking(bookingId);
+        if (booking == null) {
+            throw new IllegalArgumentException("Bokning finns inte");
+        }
+        return booking;
+    }
+
+    /**
+     * Returns the single bookings ordered by start. Occurrences of recurring series are
+     * not included, use {@link #getBookings(LocalDateTime, LocalDateTime)} to list them.
+     */
+    public synchronized List<Booking> getBookings() {
+        return Collections.unmodifiableList(bookings.toList());
+    }
+
+    /**
+     * Returns the bookings and series occurrences overlapping the interval, ordered by start.
+     * Occurrences are materialized only for the requested interval.
+     */
+    public synchronized List<Booking> getBookings(LocalDateTime startTime, LocalDateTime endTime) {
+        return Collections.unmodifiableList(bookingsOverlapping(startTime, endTime));
+    }
+
+    /**
+     * Adds a recurring series, replacing any series with the same id.
+     */
+    public synchronized void addSeries(RecurringBooking series) {
+        seriesById.put(series.getId(), series);
+        seriesChangedSinceSave = true;
+    }
+
+    public synchronized void removeSeries(String seriesId) {
+        if (seriesById.remove(seriesId) != null) {
+            seriesChangedSinceSave = true;
+        }
+    }
+
+    public synchronized List<RecurringBooking> getSeries() {
+        return List.copyOf(seriesById.values());
+    }
+
+    /**
+     * Adds a hold blocking its interval, replacing any hold with the same id.
+     */
+    public synchronized void addHold(Hold hold) {
+        Hold previous = holdsById.put(hold.id(), hold);
+        if (previous != null) {
+            heldIntervals.remove(previous.booking());
+        }
+        heldIntervals.insert(hold.booking());
+    }
+
+    /**
+     * Removes and returns the hold, or returns {@code null} if there is none.
+     */
+    public synchronized Hold removeHold(String holdId) {
+        Hold removed = holdsById.remove(holdId);
+        if (removed != null) {
+            heldIntervals.remove(removed.booking());
+        }
+        return removed;
     }
 
-    public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        return bookings.stream()
-                .noneMatch(booking ->
-                        booking.overlaps(startTime, endTime));
+    public synchronized boolean hasHold(String holdId) {
+        return holdsById.containsKey(holdId);
     }
 
-    public void addBooking(Booking booking) {
-        bookings.add(booking);
+    public synchronized List<Hold> getHolds() {
+        return List.copyOf(holdsById.values());
     }
 
-    public void removeBooking(String bookingId) {
-        bookings.removeIf(booking -> booking.getId().equals(bookingId));
+    /**
+     * Returns the end of something blocking the interval, or {@code null} if it is free.
+     * Anything starting after the returned time cannot be blocked by that booking, which
+     * lets a search jump straight past it to the next gap.
+     */
+    synchronized LocalDateTime blockedUntil(LocalDateTime startTime, LocalDateTime endTime) {
+        Booking conflict = findConflict(startTime, endTime);
+        return conflict == null ? null : conflict.getEndTime();
     }
 
-    public boolean hasBooking(String bookingId) {
-        return bookings.stream()
-                .anyMatch(booking -> booking.getId().equals(bookingId));
+    /**
+     * Returns bookings, series occurrences and holds overlapping the interval, i.e.
+     * everything that makes the room unavailable there.
+     */
+    synchronized List<Booking> blockingOverlapping(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Booking> result = bookingsOverlapping(startTime, endTime);
+        heldIntervals.forEachOverlap(startTime, endTime, result::add);
+        return result;
     }
 
-    public Booking getBooking(String bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
+    synchronized List<Booking> bookingsOverlapping(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Booking> result = bookingsInTree(startTime, endTime);
+        if (!seriesById.isEmpty()) {
+            for (RecurringBooking series : seriesById.values()) {
+                series.forEachOverlap(startTime, endTime, result::add);
+            }
+            result.sort(Comparator.comparing(Booking::getStartTime));
+        }
+        return result;
+    }
+
+    /**
+     * Removes and returns every booking that ended before the cutoff. Only bookings
+     * starting before the cutoff are visited, so the cost follows the finished history.
+     */
+    public synchronized List<Booking> removeBookingsEndingBefore(LocalDateTime cutoff) {
+        List<Booking> finished = new ArrayList<>();
+        bookings.forEachOverlap(LocalDateTime.MIN, cutoff.minusNanos(1), booking -> {
+            if (booking.getEndTime().isBefore(cutoff)) {
+                finished.add(booking);
+            }
+        });
+        for (Booking booking : finished) {
+            bookingsById.remove(booking.getId());
+            bookings.remove(booking);
+            trackRemoved(booking.getId());
+        }
+        return finished;
+    }
+
+    /**
+     * Returns the changes made since the last {@link #markSaved()}, for repositories that
+     * persist only what changed. Changes are tracked until the room is marked saved.
+     */
+    public synchronized Changes pendingChanges() {
+        return new Changes(List.copyOf(addedSinceSave.values()), Set.copyOf(removedSinceSave),
+                seriesChangedSinceSave, changesTruncated);
+    }
+
+    /**
+     * Forgets the tracked changes once they have been persisted.
+     */
+    public synchronized void markSaved() {
+        addedSinceSave.clear();
+        removedSinceSave.clear();
+        seriesChangedSinceSave = false;
+        changesTruncated = false;
+    }
+
+    private void trackAdded(Booking booking) {
+        if (!changesTruncated) {
+            addedSinceSave.put(booking.getId(), booking);
+            truncateIfFull();
+        }
+    }
+
+    private void trackRemoved(String bookingId) {
+        if (!changesTruncated) {
+            addedSinceSave.remove(bookingId);
+            removedSinceSave.add(bookingId);
+            truncateIfFull();
+        }
+    }
+
+    private void truncateIfFull() {
+        // Rum som aldrig sparas får inte samla ändringar i all oändlighet
+        if (addedSinceSave.size() + removedSinceSave.size() > MAX_TRACKED_CHANGES) {
+            addedSinceSave.clear();
+            removedSinceSave.clear();
+            changesTruncated = true;
+        }
+    }
+
+    private List<Booking> bookingsInTree(LocalDateTime startTime, LocalDateTime endTime) {
+        List<Booking> result = new ArrayList<>();
+        bookings.forEachOverlap(startTime, endTime, result::add);
+        return result;
+    }
+
+    private Booking findConflict(LocalDateTime startTime, LocalDateTime endTime) {
+        Booking conflict = bookings.findOverlap(startTime, endTime);
+        if (conflict == null && !holdsById.isEmpty()) {
+            conflict = heldIntervals.findOverlap(startTime, endTime);
+        }
+        if (conflict != null || seriesById.isEmpty()) {
+            return conflict;
+        }
+        for (RecurringBooking series : seriesById.values()) {
+            conflict = series.findOverlap(startTime, endTime);
+            if (conflict != null) {
+                return conflict;
+            }
+        }
+        return null;
+    }
+
+    private Booking findBooking(String bookingId) {
+        Booking booking = bookingsById.get(bookingId);
+        if (booking != null || seriesById.isEmpty()) {
+            return booking;
+        }
+        RecurringBooking series = seriesById.get(RecurringBooking.seriesIdOf(bookingId));
+        return series == null ? null : series.getOccurrence(RecurringBooking.occurrenceIndexOf(bookingId));
     }
 
     public String getId() {
@@ -47,4 +334,8 @@ public class Room {
     public String getName() {
         return name;
     }
+
+    public RoomAttributes getAttributes() {
+        return attributes;
+    }
 }
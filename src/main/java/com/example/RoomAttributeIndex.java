@@ -0,0 +1,105 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from room attributes to bitsets of rooms, for repositories implementing
+ * {@link RoomRepository#findByAttributes(RoomFilter)}.
+ * <p>
+ * Every indexed room gets an ordinal, and for every building, piece of equipment and
+ * capacity the index keeps a bitset of the rooms that have it. A {@link RoomFilter} is
+ * resolved by combining those bitsets (a minimum capacity ORs the bitsets of all equal or
+ * larger capacities, of which there are few) and reading the set bits back as room ids, so
+ * the cost follows the number of matches rather than the number of rooms. The owning
+ * repository keeps the index current by calling {@link #put(Room)} whenever a room is
+ * stored. Rooms are never removed, since no repository deletes rooms. Not thread-safe; the
+ * repository guards it with its own lock.
+ */
+public class RoomAttributeIndex {
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> roomIds = new ArrayList<>();
+    private final List<RoomAttributes> indexed = new ArrayList<>();
+    private final Map<String, BitSet> byBuilding = new HashMap<>();
+    private final Map<String, BitSet> byEquipment = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> byCapacity = new TreeMap<>();
+
+    /**
+     * Indexes the room, or re-indexes it if its attributes differ from the indexed ones.
+     */
+    public void put(Room room) {
+        RoomAttributes attributes = room.getAttributes();
+        Integer existing = ordinals.get(room.getId());
+        if (existing != null) {
+            RoomAttributes previous = indexed.get(existing);
+            if (!previous.equals(attributes)) {
+                update(existing, previous, false);
+                update(existing, attributes, true);
+                indexed.set(existing, attributes);
+            }
+            return;
+        }
+
+        int ordinal = roomIds.size();
+        roomIds.add(room.getId());
+        indexed.add(attributes);
+        ordinals.put(room.getId(), ordinal);
+        update(ordinal, attributes, true);
+    }
+
+    /**
+     * Returns the ids of the rooms accepted by the filter.
+     */
+    public List<String> matchingIds(RoomFilter filter) {
+        BitSet matches = new BitSet();
+        for (BitSet rooms : byCapacity.tailMap(filter.minCapacity(), true).values()) {
+            matches.or(rooms);
+        }
+        if (filter.building() != null) {
+            matches.and(byBuilding.getOrDefault(filter.building(), new BitSet()));
+        }
+        for (String equipment : filter.equipment()) {
+            if (matches.isEmpty()) {
+                break;
+            }
+            matches.and(byEquipment.getOrDefault(equipment, new BitSet()));
+        }
+
+        List<String> result = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            result.add(roomIds.get(ordinal));
+        }
+        return result;
+    }
+
+    private void update(int ordinal, RoomAttributes attributes, boolean value) {
+        set(byCapacity, attributes.capacity(), ordinal, value);
+        if (attributes.building() != null) {
+            set(byBuilding, attributes.building(), ordinal, value);
+        }
+        for (String equipment : attributes.equipment()) {
+            set(byEquipment, equipment, ordinal, value);
+        }
+    }
+
+    private static <K> void set(Map<K, BitSet> index, K key, int ordinal, boolean value) {
+        if (value) {
+            index.computeIfAbsent(key, unused -> new BitSet()).set(ordinal);
+            return;
+        }
+        BitSet rooms = index.get(key);
+        if (rooms != null) {
+            rooms.clear(ordinal);
+            // Tomma nycklar tas bort så att kapacitetsintervallet inte växer med gamla värden
+            if (rooms.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
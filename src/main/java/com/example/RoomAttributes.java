@@ -0,0 +1,24 @@
+package com.example;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Searchable properties of a {@link Room}: how many people it seats, which building it is in
+ * and what equipment it has. Attributes are fixed when the room is created.
+ */
+public record RoomAttributes(int capacity, String building, Set<String> equipment) {
+
+    public static final RoomAttributes NONE = new RoomAttributes(0, null, Set.of());
+
+    public RoomAttributes {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Kapacitet kan inte vara negativ");
+        }
+        equipment = equipment == null ? Set.of() : Set.copyOf(equipment);
+    }
+
+    public static RoomAttributes of(int capacity, String building, String... equipment) {
+        return new RoomAttributes(capacity, building, Set.copyOf(List.of(equipment)));
+    }
+}
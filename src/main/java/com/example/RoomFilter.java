@@ -0,0 +1,62 @@
+package com.example;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Attribute criteria for {@link BookingSystem#getAvailableRooms(java.time.LocalDateTime,
+ * java.time.LocalDateTime, RoomFilter)}: a minimum capacity, equipment the room must all
+ * have and, optionally, a building. The booking system passes the filter to
+ * {@link RoomRepository#findByAttributes(RoomFilter)}, which an indexing repository answers
+ * from its {@link RoomAttributeIndex}; as a {@link Predicate} the filter can also be applied
+ * to single rooms, for example in {@link BookingSystem#findEarliestSlot}.
+ */
+public record RoomFilter(int minCapacity, Set<String> equipment, String building) implements Predicate<Room> {
+
+    private static final RoomFilter ANY = new RoomFilter(0, Set.of(), null);
+
+    public RoomFilter {
+        if (minCapacity < 0) {
+            throw new IllegalArgumentException("Kapacitet kan inte vara negativ");
+        }
+        equipment = equipment == null ? Set.of() : Set.copyOf(equipment);
+    }
+
+    /**
+     * Returns a filter accepting every room, to be narrowed with the {@code with} methods.
+     */
+    public static RoomFilter any() {
+        return ANY;
+    }
+
+    public RoomFilter withMinCapacity(int minCapacity) {
+        return new RoomFilter(minCapacity, equipment, building);
+    }
+
+    /**
+     * Returns a copy that also requires the given equipment.
+     */
+    public RoomFilter withEquipment(String... required) {
+        Set<String> combined = new HashSet<>(equipment);
+        combined.addAll(List.of(required));
+        return new RoomFilter(minCapacity, combined, building);
+    }
+
+    public RoomFilter inBuilding(String building) {
+        return new RoomFilter(minCapacity, equipment, building);
+    }
+
+    boolean acceptsAll() {
+        return minCapacity == 0 && equipment.isEmpty() && building == null;
+    }
+
+    @Override
+    public boolean test(Room room) {
+        RoomAttributes attributes = room.getAttributes();
+        return attributes.capacity() >= minCapacity
+                && attributes.equipment().containsAll(equipment)
+                && (building == null || building.equals(attributes.building()));
+    }
+}
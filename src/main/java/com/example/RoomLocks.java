@@ -0,0 +1,36 @@
+package com.example;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of lock stripes keyed by room id. Operations on the same room always map
+ * to the same lock and are serialized, while most unrelated rooms land on different
+ * stripes and proceed in parallel without a global lock.
+ */
+class RoomLocks {
+
+    static final int DEFAULT_STRIPES = 256;
+
+    private final Lock[] stripes;
+
+    RoomLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    RoomLocks(int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Antalet lås måste vara en tvåpotens");
+        }
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    Lock forRoom(String roomId) {
+        int hash = roomId.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -1,10 +1,57 @@
 package com.example;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RoomRepository {
     Optional<Room> findById(String id);
     List<Room> findAll();
     void save(Room room);
+
+    /**
+     * Lazily streams all rooms. Repositories that can page through their store should
+     * override this so callers that stop early never load every room; the default
+     * streams over {@link #findAll()}.
+     */
+    default Stream<Room> streamAll() {
+        return findAll().stream();
+    }
+
+    /**
+     * Optional direct lookup of the room holding a booking. Repositories that can
+     * resolve this without loading every room should override it; the default
+     * returns empty, which makes callers fall back to scanning {@link #findAll()}.
+     */
+    default Optional<Room> findByBookingId(String bookingId) {
+        return Optional.empty();
+    }
+
+    /**
+     * Optional delta write: persists only the bookings added to and removed from an already
+     * saved room, so the cost follows the change rather than the room's size. Returns
+     * {@code false} if the changes were not written, in which case the caller saves the whole
+     * room with {@link #save(Room)}; the default always does.
+     * <p>
+     * The delta is the room's {@link Room#pendingChanges()}. The caller marks the room saved
+     * once either write succeeded, and must save the whole room instead when
+     * {@link Room.Changes#requiresFullSave()}. Repositories mark a room saved themselves when
+     * they store it whole or load it from their store, so a room they hand out carries no
+     * changes that are already persisted.
+     */
+    default boolean applyChanges(String roomId, Collection<Booking> added, Collection<String> removed) {
+        return false;
+    }
+
+    /**
+     * Optional attribute search: returns the rooms whose attributes match the filter.
+     * Repositories that keep a {@link RoomAttributeIndex} should override this so that
+     * non-matching rooms are never loaded; the default filters {@link #streamAll()}.
+     */
+    default List<Room> findByAttributes(RoomFilter filter) {
+        try (Stream<Room> rooms = streamAll()) {
+            return rooms.filter(filter).toList();
+        }
+    }
 }
@@ -0,0 +1,128 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-room queue of booking requests waiting for a taken interval to be freed.
+ * <p>
+ * Each room's requests are kept in a {@link BookingIntervalTree}, so a freed interval only
+ * visits the requests overlapping it instead of the whole queue, and rooms without waiting
+ * requests cost a single map lookup. Requests are numbered on arrival and returned in that
+ * order, which makes promotion first come, first served.
+ */
+class Waitlist {
+
+    private static final class RoomQueue {
+        private final BookingIntervalTree requests = new BookingIntervalTree();
+        // Insättningsordningen är kön
+        private final Map<String, Booking> byId = new LinkedHashMap<>();
+        private final Map<String, Long> arrival = new HashMap<>();
+        private long nextArrival;
+    }
+
+    private final Map<String, RoomQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, String> roomOfRequest = new ConcurrentHashMap<>();
+
+    void add(Booking request) {
+        RoomQueue queue = queues.computeIfAbsent(request.getRoomId(), roomId -> new RoomQueue());
+        synchronized (queue) {
+            queue.requests.insert(request);
+            queue.byId.put(request.getId(), request);
+            queue.arrival.put(request.getId(), queue.nextArrival++);
+        }
+        roomOfRequest.put(request.getId(), request.getRoomId());
+    }
+
+    /**
+     * Removes a waiting request. Returns {@code false} if it was not waiting.
+     */
+    boolean remove(String requestId) {
+        String roomId = roomOfRequest.remove(requestId);
+        RoomQueue queue = roomId == null ? null : queues.get(roomId);
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            Booking request = queue.byId.remove(requestId);
+            if (request == null) {
+                return false;
+            }
+            queue.requests.remove(request);
+            queue.arrival.remove(requestId);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the room's requests overlapping the interval, oldest first.
+     */
+    List<Booking> overlapping(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        RoomQueue queue = queues.get(roomId);
+        if (queue == null) {
+            return List.of();
+        }
+        synchronized (queue) {
+            if (queue.byId.isEmpty()) {
+                return List.of();
+            }
+            List<Booking> found = new ArrayList<>();
+            queue.requests.forEachOverlap(startTime, endTime, found::add);
+            found.sort(Comparator.comparingLong(request -> queue.arrival.get(request.getId())));
+            return found;
+        }
+    }
+
+    /**
+     * Drops the room's requests that start before {@code now}; they can never be booked.
+     * Only the started requests are visited, through the interval tree.
+     */
+    void removeStarted(String roomId, LocalDateTime now) {
+        RoomQueue queue = queues.get(roomId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            List<Booking> started = new ArrayList<>();
+            queue.requests.forEachOverlap(LocalDateTime.MIN, now, request -> {
+                if (request.getStartTime().isBefore(now)) {
+                    started.add(request);
+                }
+            });
+            for (Booking request : started) {
+                queue.requests.remove(request);
+                queue.byId.remove(request.getId());
+                queue.arrival.remove(request.getId());
+                roomOfRequest.remove(request.getId());
+            }
+        }
+    }
+
+    /**
+     * Drops started requests in every room.
+     */
+    void removeStarted(LocalDateTime now) {
+        for (String roomId : List.copyOf(queues.keySet())) {
+            removeStarted(roomId, now);
+        }
+    }
+
+    /**
+     * Returns every waiting request of the room, oldest first.
+     */
+    List<Booking> requests(String roomId) {
+        RoomQueue queue = queues.get(roomId);
+        if (queue == null) {
+            return List.of();
+        }
+        synchronized (queue) {
+            return List.copyOf(queue.byId.values());
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.persistence;
+
+import com.example.Booking;
+import com.example.RecurringBooking;
+import com.example.Room;
+import com.example.RoomAttributes;
+import com.example.RoomRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streaming bulk export and import of rooms and bookings, for migrations and backups.
+ * <p>
+ * The binary format is a magic number followed by the same framed, checksummed records
+ * as the repository log: a room record followed by its booking and series records. The
+ * CSV format has one row per booking ({@code room_id,room_name,booking_id,start,end}, times
+ * in ISO format), plus a row with empty booking fields for rooms without bookings; it does
+ * not carry recurring series or room attributes.
+ * <p>
+ * Both directions work through NIO channels with fixed-size buffers and hold at most one
+ * room in memory, so the data set may be far larger than the heap. Import writes straight
+ * to a {@link RoomRepository}, without notifications. Every booking is checked against the
+ * room's existing and already imported bookings, and overlapping or invalid ones are
+ * skipped and counted instead of aborting the import.
+ * <p>
+ * Import bypasses any {@link com.example.BookingSystem} running on the same repository and
+ * takes none of its room locks. Run it while the system accepts no bookings, and call
+ * {@link com.example.BookingSystem#reindex()} afterwards so that its booking indexes,
+ * occupancy index and availability cache see the imported bookings.
+ */
+public final class BookingTransfer {
+
+    /**
+     * Outcome of an import: rooms touched, bookings and series imported, and rows skipped.
+     */
+    public record ImportResult(int rooms, long imported, long rejected) {
+    }
+
+    private static final int MAGIC = 0x424B4731;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Längden läses innan kontrollsumman kan kontrolleras, så den får inte styra allokeringen fritt
+    private static final int MAX_RECORD_SIZE = 1 << 24;
+    private static final String CSV_HEADER = "room_id,room_name,booking_id,start,end";
+
+    private BookingTransfer() {
+    }
+
+    /**
+     * Writes the rooms in binary format and returns the number of bookings written.
+     * The channel is left open.
+     */
+    public static long exportBinary(Stream<Room> rooms, WritableByteChannel out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.putInt(MAGIC);
+        long written = 0;
+        for (Iterator<Room> it = rooms.iterator(); it.hasNext(); ) {
+            Room room = it.next();
+            buffer = RecordCodec.writeFramed(out, buffer, RecordCodec.room(room));
+            for (Booking booking : room.getBookings()) {
+                buffer = RecordCodec.writeFramed(out, buffer, RecordCodec.addBooking(booking));
+                written++;
+            }
+            for (RecurringBooking series : room.getSeries()) {
+                buffer = RecordCodec.writeFramed(out, buffer, RecordCodec.addSeries(series));
+            }
+        }
+        RecordCodec.flush(out, buffer);
+        return written;
+    }
+
+    public static ImportResult importBinary(ReadableByteChannel in, RoomRepository repository) throws IOException {
+        FramedReader reader = new FramedReader(in);
+        if (reader.readMagic() != MAGIC) {
+            throw new IOException("Okänt format på importdata");
+        }
+
+        RoomImport rooms = new RoomImport(repository);
+        ByteBuffer payload;
+        while ((payload = reader.next()) != null) {
+            byte type = payload.get();
+            switch (type) {
+                case RecordCodec.ROOM -> {
+                    String roomId = RecordCodec.getString(payload);
+                    String name = RecordCodec.getString(payload);
+                    rooms.switchTo(roomId, name, RecordCodec.getAttributes(payload));
+                }
+                case RecordCodec.ADD_BOOKING -> rooms.add(RecordCodec.getBooking(payload));
+                case RecordCodec.ADD_SERIES -> rooms.add(RecordCodec.getSeries(payload));
+                default -> throw new IOException("Okänd posttyp i importdata: " + type);
+            }
+        }
+        return rooms.finish();
+    }
+
+    /**
+     * Writes the rooms' bookings as CSV and returns the number of bookings written.
+     * Recurring series are not exported. The channel is left open.
+     */
+    public static long exportCsv(Stream<Room> rooms, WritableByteChannel out) throws IOException {
+        Writer writer = new BufferedWriter(Channels.newWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long written = 0;
+        for (Iterator<Room> it = rooms.iterator(); it.hasNext(); ) {
+            Room room = it.next();
+            List<Booking> bookings = room.getBookings();
+            if (bookings.isEmpty()) {
+                writeCsvRow(writer, room.getId(), room.getName(), "", "", "");
+            }
+            for (Booking booking : bookings) {
+                writeCsvRow(writer, room.getId(), room.getName(), booking.getId(),
+                        booking.getStartTime().toString(), booking.getEndTime().toString());
+                written++;
+            }
+        }
+        writer.flush();
+        return written;
+    }
+
+    public static ImportResult importCsv(ReadableByteChannel in, RoomRepository repository) throws IOException {
+        CsvReader reader = new CsvReader(new BufferedReader(Channels.newReader(in, StandardCharsets.UTF_8), BUFFER_SIZE));
+        List<String> header = reader.next();
+        if (header == null || !String.join(",", header).equals(CSV_HEADER)) {
+            throw new IOException("Okänd CSV-rubrik, förväntade " + CSV_HEADER);
+        }
+
+        RoomImport rooms = new RoomImport(repository);
+        List<String> row;
+        while ((row = reader.next()) != null) {
+            if (row.size() != 5 || row.get(0).isEmpty()) {
+                rooms.reject();
+                continue;
+            }
+            rooms.switchTo(row.get(0), row.get(1), RoomAttributes.NONE);
+            if (row.get(2).isEmpty()) {
+                continue;
+            }
+            try {
+                rooms.add(new Booking(row.get(2), row.get(0), LocalDateTime.parse(row.get(3)),
+                        LocalDateTime.parse(row.get(4))));
+            } catch (DateTimeParseException e) {
+                rooms.reject();
+            }
+        }
+        return rooms.finish();
+    }
+
+    private static void writeCsvRow(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i] == null ? "" : fields[i];
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+                    || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Builds up one room at a time and saves it before moving on to the next.
+     */
+    private static final class RoomImport {
+        private final RoomRepository repository;
+        private Room current;
+        private int rooms;
+        private long imported;
+        private long rejected;
+
+        private RoomImport(RoomRepository repository) {
+            this.repository = repository;
+        }
+
+        private void switchTo(String roomId, String name, RoomAttributes attributes) {
+            if (current != null && current.getId().equals(roomId)) {
+                return;
+            }
+            save();
+            current = repository.findById(roomId).orElseGet(() -> new Room(roomId, name, attributes));
+            rooms++;
+        }
+
+        private void add(Booking booking) {
+            if (current == null || !current.getId().equals(booking.getRoomId()) || booking.getId() == null
+                    || booking.getEndTime().isBefore(booking.getStartTime())
+                    || current.hasBooking(booking.getId())
+                    || !current.isAvailable(booking.getStartTime(), booking.getEndTime())) {
+                rejected++;
+                return;
+            }
+            current.addBooking(booking);
+            imported++;
+        }
+
+        private void add(RecurringBooking series) {
+            if (current == null || !current.getId().equals(series.getRoomId())
+                    || current.getSeries().stream().anyMatch(existing -> existing.getId().equals(series.getId()))
+                    || !current.isAvailable(series)) {
+                rejected++;
+                return;
+            }
+            current.addSeries(series);
+            imported++;
+        }
+
+        private void reject() {
+            rejected++;
+        }
+
+        private ImportResult finish() {
+            save();
+            current = null;
+            return new ImportResult(rooms, imported, rejected);
+        }
+
+        private void save() {
+            if (current == null) {
+                return;
+            }
+            Room.Changes changes = current.pendingChanges();
+            if (changes.requiresFullSave()
+                    || !repository.applyChanges(current.getId(), changes.added(), changes.removed())) {
+                repository.save(current);
+            }
+            current.markSaved();
+        }
+    }
+
+    /**
+     * Reads framed records from a channel through a buffer that is refilled as it drains.
+     */
+    private static final class FramedReader {
+        private final ReadableByteChannel in;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+        private boolean endOfInput;
+
+        private FramedReader(ReadableByteChannel in) {
+            this.in = in;
+        }
+
+        private int readMagic() throws IOException {
+            while (buffer.remaining() < Integer.BYTES && !endOfInput) {
+                refill(Integer.BYTES);
+            }
+            if (buffer.remaining() < Integer.BYTES) {
+                throw new IOException("Importdata saknar rubrik");
+            }
+            return buffer.getInt();
+        }
+
+        /**
+         * Returns the next record's payload, valid until the next call, or {@code null} at the end.
+         */
+        private ByteBuffer next() throws IOException {
+            while (true) {
+                ByteBuffer payload = RecordCodec.readFramed(buffer);
+                if (payload != null) {
+                    return payload;
+                }
+                int needed = RecordCodec.HEADER_SIZE;
+                if (buffer.remaining() >= RecordCodec.HEADER_SIZE) {
+                    int length = buffer.getInt(buffer.position());
+                    if (length <= 0 || length > MAX_RECORD_SIZE
+                            || length <= buffer.remaining() - RecordCodec.HEADER_SIZE) {
+                        // Hela posten finns i bufferten men kontrollsumman stämmer inte
+                        throw new IOException("Skadad post i importdata");
+                    }
+                    needed = RecordCodec.HEADER_SIZE + length;
+                }
+                if (endOfInput) {
+                    if (buffer.hasRemaining()) {
+                        throw new IOException("Ofullständig post i slutet av importdata");
+                    }
+                    return null;
+                }
+                refill(needed);
+            }
+        }
+
+        private void refill(int needed) throws IOException {
+            if (buffer.capacity() < needed) {
+                buffer = ByteBuffer.allocate(needed).put(buffer);
+            } else {
+                buffer.compact();
+            }
+            while (buffer.hasRemaining()) {
+                int read = in.read(buffer);
+                if (read < 0) {
+                    endOfInput = true;
+                    break;
+                }
+                if (read == 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Minimal RFC 4180 reader: comma separated fields, optionally quoted, where quoted
+     * fields may contain commas, doubled quotes and line breaks.
+     */
+    private static final class CsvReader {
+        private final Reader reader;
+
+        private CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        private List<String> next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) >= 0) {
+                any = true;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
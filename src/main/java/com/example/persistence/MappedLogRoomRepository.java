@@ -0,0 +1,442 @@
+package com.example.persistence;
+
+import com.example.Booking;
+import com.example.RecurringBooking;
+import com.example.Room;
+import com.example.RoomAttributeIndex;
+import com.example.RoomAttributes;
+import com.example.RoomFilter;
+import com.example.RoomRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * File-backed {@link RoomRepository} built on a memory-mapped, append-only event log.
+ * <p>
+ * Instead of serializing whole rooms, {@link #save(Room)} appends one record per booking
+ * or recurring series added, changed or removed since the room was last saved.
+ * {@link #applyChanges} writes a known delta directly, without comparing the whole room. Rooms are kept in memory and rebuilt on
+ * startup by loading the latest snapshot and replaying the log written after it. A new
+ * snapshot is taken after a configurable number of records, which bounds replay time and
+ * lets the log start over. Replay is idempotent, so a crash between writing a snapshot
+ * and resetting the log is harmless.
+ * <p>
+ * Writes are not flushed to disk one by one: the mapped log is forced after a number of
+ * writes or by a background task at a fixed interval, whichever comes first.
+ */
+public class MappedLogRoomRepository implements RoomRepository, AutoCloseable {
+
+    public static final int DEFAULT_SYNC_EVERY_WRITES = 64;
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofMillis(50);
+    public static final int DEFAULT_SNAPSHOT_EVERY_RECORDS = 100_000;
+
+    private static final String LOG_FILE = "rooms.log";
+    private static final String SNAPSHOT_FILE = "rooms.snapshot";
+    private static final int INITIAL_MAPPING_SIZE = 1 << 20;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 16;
+
+    private final Path snapshotFile;
+    private final FileChannel channel;
+    private final int syncEveryWrites;
+    private final int snapshotEveryRecords;
+    private final ScheduledExecutorService syncer;
+
+    private MappedByteBuffer log;
+    private final Map<String, Room> rooms = new LinkedHashMap<>();
+    // Det som faktiskt skrivits till loggen per rum, används för att räkna ut skillnaden vid save
+    private final Map<String, Map<String, Booking>> persisted = new HashMap<>();
+    private final Map<String, Map<String, RecurringBooking>> persistedSeries = new HashMap<>();
+    private final Map<String, String> roomByBooking = new HashMap<>();
+    private final RoomAttributeIndex attributeIndex = new RoomAttributeIndex();
+    private int recordsSinceSnapshot;
+    private int unsyncedWrites;
+    private boolean closed;
+
+    public static MappedLogRoomRepository open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SYNC_EVERY_WRITES, DEFAULT_SYNC_INTERVAL, DEFAULT_SNAPSHOT_EVERY_RECORDS);
+    }
+
+    /**
+     * Opens the repository in the directory, replaying what is stored there, and starts the
+     * background sync if {@code syncInterval} is neither {@code null} nor zero.
+     */
+    public static MappedLogRoomRepository open(Path directory, int syncEveryWrites, Duration syncInterval,
+                                               int snapshotEveryRecords) throws IOException {
+        MappedLogRoomRepository repository = new MappedLogRoomRepository(directory, syncEveryWrites,
+                syncInterval, snapshotEveryRecords);
+        if (repository.syncer != null) {
+            // Schemaläggs först när objektet är färdigbyggt, annars kan sync se ett halvt initierat objekt
+            long millis = Math.max(1, syncInterval.toMillis());
+            repository.syncer.scheduleAtFixedRate(repository::sync, millis, millis, TimeUnit.MILLISECONDS);
+        }
+        return repository;
+    }
+
+    private MappedLogRoomRepository(Path directory, int syncEveryWrites, Duration syncInterval,
+                                    int snapshotEveryRecords) throws IOException {
+        if (syncEveryWrites <= 0 || snapshotEveryRecords <= 0) {
+            throw new IllegalArgumentException("Synk- och snapshotintervall måste vara större än 0");
+        }
+        this.syncEveryWrites = syncEveryWrites;
+        this.snapshotEveryRecords = snapshotEveryRecords;
+
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        loadSnapshot();
+
+        this.channel = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.log = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAPPING_SIZE, channel.size()));
+        replayLog();
+        // Rum som byggts upp från disk har inga osparade ändringar
+        rooms.values().forEach(Room::markSaved);
+
+        if (syncInterval == null || syncInterval.isZero()) {
+            this.syncer = null;
+        } else {
+            this.syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "room-log-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public synchronized Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public synchronized List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public synchronized Optional<Room> findByBookingId(String bookingId) {
+        String roomId = roomByBooking.get(bookingId);
+        if (roomId == null) {
+            roomId = roomByBooking.get(RecurringBooking.seriesIdOf(bookingId));
+        }
+        return roomId == null ? Optional.empty() : Optional.ofNullable(rooms.get(roomId));
+    }
+
+    /**
+     * Resolves the filter on an attribute index kept current by saves and log replay, so
+     * only matching rooms are visited.
+     */
+    @Override
+    public synchronized List<Room> findByAttributes(RoomFilter filter) {
+        List<Room> matching = new ArrayList<>();
+        for (String roomId : attributeIndex.matchingIds(filter)) {
+            matching.add(rooms.get(roomId));
+        }
+        return matching;
+    }
+
+    @Override
+    public synchronized void save(Room room) {
+        ensureOpen();
+        Room previous = rooms.get(room.getId());
+        // Nya rum och ändrade attribut loggas, annars återställs gamla attribut vid omstart
+        if (previous == null || !previous.getAttributes().equals(room.getAttributes())) {
+            append(RecordCodec.room(room));
+        }
+        rooms.put(room.getId(), room);
+        attributeIndex.put(room);
+
+        Map<String, Booking> logged = persisted.computeIfAbsent(room.getId(), id -> new HashMap<>());
+        Map<String, Booking> current = new HashMap<>();
+        for (Booking booking : room.getBookings()) {
+            current.put(booking.getId(), booking);
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String bookingId : logged.keySet()) {
+            if (!current.containsKey(bookingId)) {
+                removed.add(bookingId);
+            }
+        }
+        appendChanges(room.getId(), logged, current.values(), removed);
+        saveSeries(room);
+        syncOrSnapshotIfDue();
+        room.markSaved();
+    }
+
+    /**
+     * Appends one record per changed booking of a room already in the repository. The
+     * caller's room object is the one held here, so only the log has to be written.
+     * Returns {@code false} for unknown rooms, which have to be saved whole first.
+     */
+    @Override
+    public synchronized boolean applyChanges(String roomId, Collection<Booking> added, Collection<String> removed) {
+        ensureOpen();
+        if (!rooms.containsKey(roomId)) {
+            return false;
+        }
+        appendChanges(roomId, persisted.computeIfAbsent(roomId, id -> new HashMap<>()), added, removed);
+        syncOrSnapshotIfDue();
+        return true;
+    }
+
+    /**
+     * Forces written log records to disk.
+     */
+    public synchronized void sync() {
+        if (closed || unsyncedWrites == 0) {
+            return;
+        }
+        log.force();
+        unsyncedWrites = 0;
+    }
+
+    /**
+     * Writes the full state to a new snapshot file and starts the log over.
+     */
+    public synchronized void snapshot() {
+        ensureOpen();
+        Path temporary = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_BUFFER_SIZE);
+            for (Room room : rooms.values()) {
+                buffer = RecordCodec.writeFramed(out, buffer, RecordCodec.room(room));
+                for (Booking booking : persisted.getOrDefault(room.getId(), Map.of()).values()) {
+                    buffer = RecordCodec.writeFramed(out, buffer, RecordCodec.addBooking(booking));
+                }
+                for (RecurringBooking series : persistedSeries.getOrDefault(room.getId(), Map.of()).values()) {
+                    buffer = RecordCodec.writeFramed(out, buffer, RecordCodec.addSeries(series));
+                }
+            }
+            RecordCodec.flush(out, buffer);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte skriva snapshot", e);
+        }
+
+        try {
+            Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte ersätta snapshot", e);
+        }
+
+        clearLog(0, log.position());
+        log.position(0);
+        log.force();
+        recordsSinceSnapshot = 0;
+        unsyncedWrites = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            sync();
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void appendChanges(String roomId, Map<String, Booking> logged, Collection<Booking> added,
+                               Collection<String> removed) {
+        for (String bookingId : removed) {
+            if (logged.remove(bookingId) != null) {
+                append(RecordCodec.removeBooking(roomId, bookingId));
+                roomByBooking.remove(bookingId);
+            }
+        }
+        for (Booking booking : added) {
+            Booking previous = logged.get(booking.getId());
+            if (previous == null || !sameInterval(previous, booking)) {
+                append(RecordCodec.addBooking(booking));
+                logged.put(booking.getId(), booking);
+                roomByBooking.put(booking.getId(), roomId);
+            }
+        }
+    }
+
+    private void syncOrSnapshotIfDue() {
+        if (unsyncedWrites >= syncEveryWrites) {
+            sync();
+        }
+        if (recordsSinceSnapshot >= snapshotEveryRecords) {
+            snapshot();
+        }
+    }
+
+    private void saveSeries(Room room) {
+        Map<String, RecurringBooking> logged = persistedSeries.computeIfAbsent(room.getId(), id -> new HashMap<>());
+        Map<String, RecurringBooking> current = new HashMap<>();
+        for (RecurringBooking series : room.getSeries()) {
+            current.put(series.getId(), series);
+        }
+
+        for (Iterator<String> ids = logged.keySet().iterator(); ids.hasNext(); ) {
+            String seriesId = ids.next();
+            if (!current.containsKey(seriesId)) {
+                append(RecordCodec.removeSeries(room.getId(), seriesId));
+                roomByBooking.remove(seriesId);
+                ids.remove();
+            }
+        }
+        for (RecurringBooking series : current.values()) {
+            // Serier är oföränderliga, en ändrad serie är ett nytt objekt och skrivs om i sin helhet
+            if (logged.get(series.getId()) != series) {
+                append(RecordCodec.addSeries(series));
+                logged.put(series.getId(), series);
+                roomByBooking.put(series.getId(), room.getId());
+            }
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (FileChannel in = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            ByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            ByteBuffer payload;
+            while ((payload = RecordCodec.readFramed(data)) != null) {
+                apply(payload);
+            }
+        }
+    }
+
+    private void replayLog() {
+        ByteBuffer payload;
+        while ((payload = RecordCodec.readFramed(log)) != null) {
+            apply(payload);
+            recordsSinceSnapshot++;
+        }
+        // Ett halvskrivet sista record (krasch mitt i skrivning) nollställs så att det inte läses igen
+        int position = log.position();
+        if (log.remaining() >= Integer.BYTES && log.getInt(position) != 0) {
+            clearLog(position, log.capacity());
+        }
+        log.position(position);
+    }
+
+    private void apply(ByteBuffer payload) {
+        byte type = payload.get();
+        switch (type) {
+            case RecordCodec.ROOM -> {
+                String roomId = RecordCodec.getString(payload);
+                String name = RecordCodec.getString(payload);
+                RoomAttributes attributes = RecordCodec.getAttributes(payload);
+                Room existing = rooms.get(roomId);
+                if (existing == null) {
+                    Room room = new Room(roomId, name, attributes);
+                    rooms.put(roomId, room);
+                    attributeIndex.put(room);
+                } else if (!existing.getAttributes().equals(attributes)) {
+                    // Attributen har ändrats, bygg om rummet med samma bokningar
+                    Room room = new Room(roomId, existing.getName(), attributes);
+                    existing.getBookings().forEach(room::addBooking);
+                    existing.getSeries().forEach(room::addSeries);
+                    rooms.put(roomId, room);
+                    attributeIndex.put(room);
+                }
+                persisted.computeIfAbsent(roomId, id -> new HashMap<>());
+            }
+            case RecordCodec.ADD_BOOKING -> {
+                Booking booking = RecordCodec.getBooking(payload);
+                Room room = rooms.get(booking.getRoomId());
+                if (room != null) {
+                    room.addBooking(booking);
+                    persisted.computeIfAbsent(room.getId(), id -> new HashMap<>()).put(booking.getId(), booking);
+                    roomByBooking.put(booking.getId(), room.getId());
+                }
+            }
+            case RecordCodec.REMOVE_BOOKING -> {
+                String roomId = RecordCodec.getString(payload);
+                String bookingId = RecordCodec.getString(payload);
+                Room room = rooms.get(roomId);
+                if (room != null) {
+                    room.removeBooking(bookingId);
+                    persisted.getOrDefault(roomId, new HashMap<>()).remove(bookingId);
+                    roomByBooking.remove(bookingId);
+                }
+            }
+            case RecordCodec.ADD_SERIES -> {
+                RecurringBooking series = RecordCodec.getSeries(payload);
+                Room room = rooms.get(series.getRoomId());
+                if (room != null) {
+                    room.addSeries(series);
+                    persistedSeries.computeIfAbsent(room.getId(), id -> new HashMap<>()).put(series.getId(), series);
+                    roomByBooking.put(series.getId(), room.getId());
+                }
+            }
+            case RecordCodec.REMOVE_SERIES -> {
+                String roomId = RecordCodec.getString(payload);
+                String seriesId = RecordCodec.getString(payload);
+                Room room = rooms.get(roomId);
+                if (room != null) {
+                    room.removeSeries(seriesId);
+                    persistedSeries.getOrDefault(roomId, new HashMap<>()).remove(seriesId);
+                    roomByBooking.remove(seriesId);
+                }
+            }
+            default -> throw new IllegalStateException("Okänd posttyp i loggen: " + type);
+        }
+    }
+
+    private void append(ByteBuffer payload) {
+        int size = RecordCodec.framedSize(payload);
+        if (log.remaining() < size) {
+            grow(log.position() + size);
+        }
+        RecordCodec.writeFramed(log, payload);
+        recordsSinceSnapshot++;
+        unsyncedWrites++;
+    }
+
+    private void grow(long minimumSize) {
+        int position = log.position();
+        long newSize = Math.max((long) log.capacity() * 2, minimumSize);
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Loggen är full, ta en snapshot oftare");
+        }
+        try {
+            log.force();
+            log = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte utöka loggen", e);
+        }
+        log.position(position);
+    }
+
+    private void clearLog(int from, int to) {
+        byte[] zeros = new byte[Math.min(SNAPSHOT_BUFFER_SIZE, Math.max(0, to - from))];
+        for (int position = from; position < to; position += zeros.length) {
+            log.put(position, zeros, 0, Math.min(zeros.length, to - position));
+        }
+    }
+
+    private static boolean sameInterval(Booking first, Booking second) {
+        return first.getStartTime().equals(second.getStartTime()) && first.getEndTime().equals(second.getEndTime());
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Repositoryt är stängt");
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.persistence;
+
+import com.example.Booking;
+import com.example.RecurrenceRule;
+import com.example.RecurringBooking;
+import com.example.Room;
+import com.example.RoomAttributes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of room and booking records shared by the persistent repository.
+ * Every record is framed as {@code [int length][int crc32][payload]}, where the payload
+ * starts with a one byte record type. A zero length marks the end of written data.
+ */
+final class RecordCodec {
+
+    static final byte ROOM = 1;
+    static final byte ADD_BOOKING = 2;
+    static final byte REMOVE_BOOKING = 3;
+    static final byte ADD_SERIES = 4;
+    static final byte REMOVE_SERIES = 5;
+
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private RecordCodec() {
+    }
+
+    static ByteBuffer room(Room room) {
+        byte[] id = bytes(room.getId());
+        byte[] roomName = bytes(room.getName());
+        RoomAttributes attributes = room.getAttributes();
+        byte[] building = bytes(attributes.building());
+        List<byte[]> equipment = new ArrayList<>();
+        int size = 1 + sizeOf(id) + sizeOf(roomName) + Integer.BYTES + sizeOf(building) + Integer.BYTES;
+        for (String item : attributes.equipment()) {
+            byte[] value = bytes(item);
+            equipment.add(value);
+            size += sizeOf(value);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(size);
+        payload.put(ROOM);
+        putBytes(payload, id);
+        putBytes(payload, roomName);
+        payload.putInt(attributes.capacity());
+        putBytes(payload, building);
+        payload.putInt(equipment.size());
+        equipment.forEach(value -> putBytes(payload, value));
+        return payload.flip();
+    }
+
+    static ByteBuffer addBooking(Booking booking) {
+        byte[] roomId = bytes(booking.getRoomId());
+        byte[] bookingId = bytes(booking.getId());
+        ByteBuffer payload = ByteBuffer.allocate(1 + sizeOf(roomId) + sizeOf(bookingId) + 2 * (Long.BYTES + Integer.BYTES));
+        payload.put(ADD_BOOKING);
+        putBytes(payload, roomId);
+        putBytes(payload, bookingId);
+        putTime(payload, booking.getStartTime());
+        putTime(payload, booking.getEndTime());
+        return payload.flip();
+    }
+
+    static ByteBuffer removeBooking(String roomId, String bookingId) {
+        return removal(REMOVE_BOOKING, roomId, bookingId);
+    }
+
+    /**
+     * Encodes a whole series: its first occurrence, the rule and the excepted dates.
+     */
+    static ByteBuffer addSeries(RecurringBooking series) {
+        byte[] roomId = bytes(series.getRoomId());
+        byte[] seriesId = bytes(series.getId());
+        RecurrenceRule rule = series.getRule();
+        ByteBuffer payload = ByteBuffer.allocate(1 + sizeOf(roomId) + sizeOf(seriesId)
+                + 2 * (Long.BYTES + Integer.BYTES) + 1 + 3 * Integer.BYTES + rule.exceptions().size() * Long.BYTES);
+        payload.put(ADD_SERIES);
+        putBytes(payload, roomId);
+        putBytes(payload, seriesId);
+        putTime(payload, series.getStartTime());
+        putTime(payload, series.getEndTime());
+        payload.put((byte) rule.frequency().ordinal());
+        payload.putInt(rule.interval());
+        payload.putInt(rule.occurrences());
+        payload.putInt(rule.exceptions().size());
+        for (LocalDate date : rule.exceptions()) {
+            payload.putLong(date.toEpochDay());
+        }
+        return payload.flip();
+    }
+
+    static ByteBuffer removeSeries(String roomId, String seriesId) {
+        return removal(REMOVE_SERIES, roomId, seriesId);
+    }
+
+    /**
+     * Writes a framed record at the buffer's position.
+     */
+    static void writeFramed(ByteBuffer target, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        target.putInt(payload.remaining());
+        target.putInt((int) crc.getValue());
+        target.put(payload);
+    }
+
+    static int framedSize(ByteBuffer payload) {
+        return HEADER_SIZE + payload.remaining();
+    }
+
+    /**
+     * Writes a framed record into a staging buffer, first flushing the buffer to the channel
+     * if the record does not fit. Returns the buffer to keep using, which is only replaced
+     * by a larger one for a record bigger than the buffer itself.
+     */
+    static ByteBuffer writeFramed(WritableByteChannel out, ByteBuffer buffer, ByteBuffer payload) throws IOException {
+        int size = framedSize(payload);
+        if (buffer.remaining() < size) {
+            flush(out, buffer);
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(size);
+            }
+        }
+        writeFramed(buffer, payload);
+        return buffer;
+    }
+
+    static void flush(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads the next framed record, or returns {@code null} at the end of written data or
+     * at a torn (partially written) record.
+     */
+    static ByteBuffer readFramed(ByteBuffer source) {
+        if (source.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int start = source.position();
+        int length = source.getInt();
+        int checksum = source.getInt();
+        if (length <= 0 || length > source.remaining()) {
+            source.position(start);
+            return null;
+        }
+        ByteBuffer payload = source.slice(source.position(), length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            source.position(start);
+            return null;
+        }
+        source.position(source.position() + length);
+        return payload;
+    }
+
+    static String getString(ByteBuffer payload) {
+        int length = payload.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        payload.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the attributes following the id and name of a room record. Records written
+     * before rooms had attributes end after the name and get {@link RoomAttributes#NONE}.
+     */
+    static RoomAttributes getAttributes(ByteBuffer payload) {
+        if (!payload.hasRemaining()) {
+            return RoomAttributes.NONE;
+        }
+        int capacity = payload.getInt();
+        String building = getString(payload);
+        int equipmentCount = payload.getInt();
+        Set<String> equipment = new HashSet<>();
+        for (int i = 0; i < equipmentCount; i++) {
+            equipment.add(getString(payload));
+        }
+        return new RoomAttributes(capacity, building, equipment);
+    }
+
+    static LocalDateTime getTime(ByteBuffer payload) {
+        long epochSecond = payload.getLong();
+        int nano = payload.getInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    static Booking getBooking(ByteBuffer payload) {
+        String roomId = getString(payload);
+        String bookingId = getString(payload);
+        LocalDateTime start = getTime(payload);
+        LocalDateTime end = getTime(payload);
+        return new Booking(bookingId, roomId, start, end);
+    }
+
+    static RecurringBooking getSeries(ByteBuffer payload) {
+        String roomId = getString(payload);
+        String seriesId = getString(payload);
+        LocalDateTime start = getTime(payload);
+        LocalDateTime end = getTime(payload);
+        RecurrenceRule.Frequency frequency = RecurrenceRule.Frequency.values()[payload.get()];
+        int interval = payload.getInt();
+        int occurrences = payload.getInt();
+        int exceptionCount = payload.getInt();
+        Set<LocalDate> exceptions = new HashSet<>();
+        for (int i = 0; i < exceptionCount; i++) {
+            exceptions.add(LocalDate.ofEpochDay(payload.getLong()));
+        }
+        return new RecurringBooking(seriesId, roomId, start, end,
+                new RecurrenceRule(frequency, interval, occurrences, exceptions));
+    }
+
+    private static ByteBuffer removal(byte type, String roomId, String id) {
+        byte[] room = bytes(roomId);
+        byte[] removed = bytes(id);
+        ByteBuffer payload = ByteBuffer.allocate(1 + sizeOf(room) + sizeOf(removed));
+        payload.put(type);
+        putBytes(payload, room);
+        putBytes(payload, removed);
+        return payload.flip();
+    }
+
+    private static void putTime(ByteBuffer payload, LocalDateTime time) {
+        payload.putLong(time.toEpochSecond(ZoneOffset.UTC));
+        payload.putInt(time.getNano());
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    private static void putBytes(ByteBuffer payload, byte[] value) {
+        if (value == null) {
+            payload.putInt(-1);
+            return;
+        }
+        payload.putInt(value.length);
+        payload.put(value);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for {@link AsyncBookingSystem} over a real {@link BookingSystem} with in-memory
+ * dependencies.
+ */
+class AsyncBookingSystemTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 1, 20, 10, 0);
+    private final InMemoryRoomRepository repository = new InMemoryRoomRepository();
+    private final InMemoryNotificationService notifications = new InMemoryNotificationService();
+    private BookingSystem bookingSystem;
+    private AsyncBookingSystem asyncSystem;
+
+    @BeforeEach
+    void setUp() {
+        repository.save(new Room("room1", "Ocean Suite"));
+        repository.save(new Room("room2", "Garden Room"));
+        bookingSystem = new BookingSystem(() -> now, repository, notifications);
+        asyncSystem = new AsyncBookingSystem(bookingSystem);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncSystem.close();
+    }
+
+    /**
+     * A booking made asynchronously blocks the room, is confirmed and can be cancelled again.
+     */
+    @Test
+    void book_and_cancel_complete_asynchronously() {
+        //Act
+        boolean booked = asyncSystem.bookRoomAsync("room1", now.plusDays(1), now.plusDays(2)).join();
+        List<Room> available = asyncSystem.getAvailableRoomsAsync(now.plusDays(1), now.plusDays(2)).join();
+        String bookingId = repository.findById("room1").orElseThrow().getBookings().get(0).getId();
+        boolean cancelled = asyncSystem.cancelBookingAsync(bookingId).join();
+
+        //Assert
+        assertThat(booked).isTrue();
+        assertThat(available).extracting(Room::getId).containsExactly("room2");
+        assertThat(cancelled).isTrue();
+        assertThat(notifications.getDelivered()).extracting(Notification::type).containsExactly(
+                Notification.Type.BOOKING_CONFIRMATION, Notification.Type.CANCELLATION_CONFIRMATION);
+    }
+
+    /**
+     * Of many concurrent requests for the same slot exactly one succeeds.
+     */
+    @Test
+    void concurrent_async_bookings_of_same_slot_book_once() {
+        //Arrange
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+
+        //Act
+        for (int i = 0; i < 100; i++) {
+            results.add(asyncSystem.bookRoomAsync("room1", now.plusDays(1), now.plusDays(2)));
+        }
+
+        //Assert
+        assertThat(results.stream().filter(CompletableFuture::join).count()).isEqualTo(1);
+        assertThat(repository.findById("room1").orElseThrow().getBookings()).hasSize(1);
+    }
+
+    /**
+     * Blocking and asynchronous callers share the room locks, so of concurrent requests for
+     * the same slot through both fronts exactly one succeeds, and the room is left with no
+     * unsaved changes.
+     */
+    @Test
+    void mixed_sync_and_async_bookings_of_same_slot_book_once() throws InterruptedException {
+        //Arrange
+        LocalDateTime start = now.plusDays(1);
+        List<CompletableFuture<Boolean>> asyncResults = new ArrayList<>();
+        List<Thread> syncCallers = new ArrayList<>();
+        AtomicInteger syncBooked = new AtomicInteger();
+
+        //Act
+        for (int i = 0; i < 50; i++) {
+            asyncResults.add(asyncSystem.bookRoomAsync("room1", start, start.plusHours(1)));
+            syncCallers.add(Thread.ofVirtual().start(() -> {
+                if (bookingSystem.bookRoom("room1", start, start.plusHours(1))) {
+                    syncBooked.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread caller : syncCallers) {
+            caller.join();
+        }
+        long asyncBooked = asyncResults.stream().filter(CompletableFuture::join).count();
+
+        //Assert
+        Room room = repository.findById("room1").orElseThrow();
+        assertThat(asyncBooked + syncBooked.get()).isEqualTo(1);
+        assertThat(room.getBookings()).hasSize(1);
+        assertThat(room.pendingChanges().isEmpty()).isTrue();
+    }
+
+    /**
+     * An asynchronous booking goes through the wrapped system, so its cached availability is
+     * invalidated and the booking can be cancelled through the blocking front.
+     */
+    @Test
+    void async_booking_updates_the_wrapped_system() {
+        //Arrange
+        bookingSystem.setAvailabilityCache(new AvailabilityCache());
+        LocalDateTime start = now.plusDays(1);
+        bookingSystem.getAvailableRooms(start, start.plusHours(1));
+
+        //Act
+        asyncSystem.bookRoomAsync("room1", start, start.plusHours(1)).join();
+        List<Room> available = bookingSystem.getAvailableRooms(start, start.plusHours(1));
+        String bookingId = repository.findById("room1").orElseThrow().getBookings().get(0).getId();
+        boolean cancelled = bookingSystem.cancelBooking(bookingId);
+
+        //Assert
+        assertThat(available).extracting(Room::getId).containsExactly("room2");
+        assertThat(cancelled).isTrue();
+    }
+
+    /**
+     * Invalid input fails the future, while a failed notification does not fail the booking.
+     */
+    @Test
+    void invalid_input_fails_future_and_notification_failure_is_ignored() {
+        //Arrange
+        notifications.failNext(1);
+
+        //Act
+        CompletableFuture<Boolean> missingRoom = asyncSystem.bookRoomAsync("room9", now.plusDays(1), now.plusDays(2));
+        CompletableFuture<Boolean> inPast = asyncSystem.bookRoomAsync("room1", now.minusDays(1), now.plusDays(1));
+        boolean booked = asyncSystem.bookRoomAsync("room2", now.plusDays(1), now.plusDays(2)).join();
+
+        //Assert
+        assertThatThrownBy(missingRoom::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Rummet existerar inte");
+        assertThat(inPast).failsWithin(Duration.ofSeconds(5));
+        assertThat(booked).isTrue();
+        assertThat(notifications.getDelivered()).isEmpty();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures {@link BookingSystem#getAvailableRooms(LocalDateTime, LocalDateTime)} with and
+ * without parallel evaluation for growing room counts, to find the room count where the
+ * fork/join split starts paying off on the current machine. Not a unit test; run it with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.example.AvailabilityBenchmark
+ * </pre>
+ * and pass the printed crossover to {@link BookingSystem#setParallelAvailability}. The
+ * optional arguments are the bookings per room and the pool parallelism.
+ */
+public class AvailabilityBenchmark {
+
+    private static final int[] ROOM_COUNTS = {100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000};
+    private static final int WARMUP_ROUNDS = 200;
+    private static final long MEASURE_NANOS = 500_000_000L;
+
+    // Resultaten skrivs hit så att JIT-kompilatorn inte kan ta bort anropen
+    private static volatile long sink;
+
+    public static void main(String[] args) {
+        int bookingsPerRoom = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime start = now.plusDays(bookingsPerRoom / 2).plusMinutes(30);
+        LocalDateTime end = start.plusMinutes(15);
+
+        System.out.printf("%d bookings per room, %d workers%n", bookingsPerRoom, parallelism);
+        System.out.printf("%8s %14s %14s %8s%n", "rooms", "sequential us", "parallel us", "speedup");
+        Integer crossover = null;
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            for (int roomCount : ROOM_COUNTS) {
+                InMemoryRoomRepository repository = new InMemoryRoomRepository();
+                for (int r = 0; r < roomCount; r++) {
+                    Room room = new Room("room" + r, "Room " + r);
+                    for (int b = 0; b < bookingsPerRoom; b++) {
+                        // Varannat rum är bokat i frågefönstret
+                        LocalDateTime day = now.plusDays(b).plusHours(r % 2);
+                        room.addBooking(new Booking("B" + r + "-" + b, room.getId(), day, day.plusHours(1)));
+                    }
+                    repository.save(room);
+                }
+                BookingSystem sequential = new BookingSystem(() -> now, repository, null);
+                BookingSystem parallel = new BookingSystem(() -> now, repository, null);
+                parallel.setParallelAvailability(pool, 1);
+
+                double sequentialMicros = measure(sequential, start, end);
+                double parallelMicros = measure(parallel, start, end);
+                double speedup = sequentialMicros / parallelMicros;
+                if (crossover == null && speedup > 1.1) {
+                    crossover = roomCount;
+                }
+                System.out.printf("%8d %14.1f %14.1f %7.2fx%n", roomCount, sequentialMicros, parallelMicros, speedup);
+            }
+        }
+        System.out.println(crossover == null
+                ? "Parallel evaluation never won; leave it off on this machine"
+                : "Crossover at about " + crossover + " rooms");
+    }
+
+    private static double measure(BookingSystem system, LocalDateTime start, LocalDateTime end) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink += system.getAvailableRooms(start, end).size();
+        }
+        long rounds = 0;
+        long began = System.nanoTime();
+        long elapsed;
+        do {
+            List<Room> available = system.getAvailableRooms(start, end);
+            sink += available.size();
+            rounds++;
+            elapsed = System.nanoTime() - began;
+        } while (elapsed < MEASURE_NANOS);
+        return elapsed / 1_000.0 / rounds;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BookingChangeFeed}.
+ * Verifies cursor reads, replay from a sequence number and detection of overwritten events.
+ */
+class BookingChangeFeedTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 1, 21, 10, 0);
+
+    /**
+     * Independent subscriptions read the same events in order, each at its own pace.
+     */
+    @Test
+    void subscriptions_read_events_in_sequence_order() {
+        //Arrange
+        BookingChangeFeed feed = new BookingChangeFeed(8);
+        BookingChangeFeed.Subscription fast = feed.subscribe();
+        BookingChangeFeed.Subscription slow = feed.subscribe();
+        for (int i = 0; i < 5; i++) {
+            feed.publish(BookingEvent.Type.CREATED, booking("B" + i), null);
+        }
+
+        //Act
+        List<BookingEvent> all = fast.poll(10);
+        List<BookingEvent> firstTwo = slow.poll(2);
+        List<BookingEvent> rest = slow.poll(10);
+
+        //Assert
+        assertThat(all).extracting(BookingEvent::sequence).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(firstTwo).extracting(event -> event.booking().getId()).containsExactly("B0", "B1");
+        assertThat(rest).extracting(BookingEvent::sequence).containsExactly(3L, 4L, 5L);
+        assertThat(fast.poll(10)).isEmpty();
+        assertThat(fast.position()).isEqualTo(6);
+    }
+
+    /**
+     * Replay works while events are buffered; a subscriber that has been lapped is told so.
+     */
+    @Test
+    void replay_is_limited_to_buffered_events() {
+        //Arrange
+        BookingChangeFeed feed = new BookingChangeFeed(4);
+        BookingChangeFeed.Subscription lagging = feed.subscribe();
+        for (int i = 0; i < 10; i++) {
+            feed.publish(BookingEvent.Type.CREATED, booking("B" + i), null);
+        }
+
+        //Act
+        List<BookingEvent> replayed = feed.subscribeFrom(8).poll(10);
+
+        //Assert
+        assertThat(feed.oldestSequence()).isEqualTo(7);
+        assertThat(replayed).extracting(BookingEvent::sequence).containsExactly(8L, 9L, 10L);
+        assertThatThrownBy(() -> feed.subscribeFrom(3)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> lagging.poll(10))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("finns inte längre");
+    }
+
+    private Booking booking(String id) {
+        return new Booking(id, "room1", start, start.plusHours(1));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrency stress test for {@link BookingSystem}.
+ * Many threads book overlapping intervals in a handful of rooms at the same time;
+ * afterwards no room may contain two overlapping bookings.
+ */
+class BookingSystemConcurrencyTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 1, 20, 10, 0);
+
+    /**
+     * Verifies that contended bookings on the same rooms never produce a double booking
+     * and that every successful call is reflected in the stored rooms.
+     */
+    @Test
+    void concurrent_bookings_never_overlap() throws Exception {
+        //Arrange
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        for (int i = 0; i < 4; i++) {
+            repository.save(new Room("room" + i, "Rum " + i));
+        }
+        NotificationService notifications = new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+            }
+        };
+        BookingSystem bookingSystem = new BookingSystem(() -> now, repository, notifications);
+        bookingSystem.setOccupancyIndex(new OccupancyIndex(() -> now));
+        AtomicInteger successful = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //Act
+        for (int thread = 0; thread < 16; thread++) {
+            long seed = thread;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    String roomId = "room" + random.nextInt(4);
+                    LocalDateTime from = now.plusMinutes(1 + random.nextInt(10_000));
+                    if (bookingSystem.bookRoom(roomId, from, from.plusMinutes(1 + random.nextInt(120)))) {
+                        successful.incrementAndGet();
+                    }
+                    if (i % 50 == 0) {
+                        bookingSystem.getAvailableRooms(from, from.plusMinutes(30));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //Assert
+        int stored = 0;
+        for (Room room : repository.findAll()) {
+            List<Booking> bookings = room.getBookings();
+            stored += bookings.size();
+            LocalDateTime latestEnd = null;
+            for (Booking booking : bookings) {
+                if (latestEnd != null) {
+                    assertThat(booking.getStartTime()).isAfter(latestEnd);
+                }
+                latestEnd = latestEnd == null || booking.getEndTime().isAfter(latestEnd)
+                        ? booking.getEndTime() : latestEnd;
+            }
+        }
+        assertThat(stored).isEqualTo(successful.get()).isPositive();
+    }
+}
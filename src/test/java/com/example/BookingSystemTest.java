@@ -11,13 +11,22 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 
@@ -231,6 +240,7 @@ class BookingSystemTest {
             room.addBooking(booking);
 
             when(roomRepository.findAll()).thenReturn(List.of(room));
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
 
             //Act
             boolean result = bookingSystem.cancelBooking(bookingId);
@@ -262,6 +272,7 @@ class BookingSystemTest {
             room.addBooking(booking);
 
             when(roomRepository.findAll()).thenReturn(List.of(room));
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
 
             //Act + Assert
             assertThatThrownBy(() ->
@@ -293,6 +304,7 @@ class BookingSystemTest {
             room.addBooking(booking);
 
             when(roomRepository.findAll()).thenReturn(List.of(room));
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
             doThrow(new NotificationException("Error sending notification")).when(notificationService).sendCancellationConfirmation(any());
 
             //Act
@@ -303,6 +315,80 @@ class BookingSystemTest {
             verify(roomRepository).save(room);
         }
 
+        /**
+         * Verifies that a booking made through the system is cancelled via the booking-id index.
+         * <p>
+         * Expectation: The room is loaded with findById, again under the room lock, and findAll is never called.
+         */
+        @Test
+        void cancel_booking_made_through_system_uses_index_instead_of_scanning_rooms() {
+            //Arrange
+            String roomId = "Room1";
+            Room room = new Room(roomId, "Ocean Suite");
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+            bookingSystem.bookRoom(roomId, now.plusDays(1), now.plusDays(2));
+            String bookingId = room.getBookings().getFirst().getId();
+
+            //Act
+            boolean result = bookingSystem.cancelBooking(bookingId);
+
+            //Assert
+            assertThat(result).isTrue();
+            assertThat(room.hasBooking(bookingId)).isFalse();
+            verify(roomRepository, times(3)).findById(roomId);
+            verify(roomRepository, never()).findAll();
+        }
+
+        /**
+         * Verifies that cancellation works on the room as it is under the lock, not on the copy found by the lookup.
+         * <p>
+         * Expectation: A booking added to the stored room after the lookup survives the cancellation.
+         */
+        @Test
+        void cancel_booking_reloads_room_under_lock() {
+            //Arrange
+            Booking cancelled = new Booking("B1", "Room1", now.plusDays(1), now.plusDays(2));
+            Room stale = new Room("Room1", "Ocean Suite");
+            stale.addBooking(cancelled);
+            Room current = new Room("Room1", "Ocean Suite");
+            current.addBooking(cancelled);
+            current.addBooking(new Booking("B2", "Room1", now.plusDays(3), now.plusDays(4)));
+            when(roomRepository.findByBookingId("B1")).thenReturn(Optional.of(stale));
+            when(roomRepository.findById("Room1")).thenReturn(Optional.of(current));
+
+            //Act
+            boolean result = bookingSystem.cancelBooking("B1");
+
+            //Assert
+            assertThat(result).isTrue();
+            assertThat(current.getBookings()).extracting(Booking::getId).containsExactly("B2");
+            verify(roomRepository).save(current);
+            verify(roomRepository, never()).save(stale);
+        }
+
+        /**
+         * Verifies that the repository lookup by booking id is used when the index has no entry.
+         * <p>
+         * Expectation: The booking is cancelled without scanning all rooms.
+         */
+        @Test
+        void cancel_booking_unknown_to_index_uses_repository_lookup() {
+            //Arrange
+            String bookingId = "B7812";
+            Room room = new Room("Room1", "Ocean Suite");
+            room.addBooking(new Booking(bookingId, "Room1", now.plusDays(1), now.plusDays(2)));
+            when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.of(room));
+            when(roomRepository.findById("Room1")).thenReturn(Optional.of(room));
+
+            //Act
+            boolean result = bookingSystem.cancelBooking(bookingId);
+
+            //Assert
+            assertThat(result).isTrue();
+            verify(roomRepository).save(room);
+            verify(roomRepository, never()).findAll();
+        }
+
     }
 
     /**
@@ -458,4 +544,1003 @@ class BookingSystemTest {
 
     }
 
+    /**
+     * Tests for the bulk booking API.
+     * Verifies grouping per room, conflict detection within the batch and per-request results.
+     */
+    @Nested
+    class BulkBookingTests {
+        @BeforeEach
+        void setUp() {
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+        }
+
+        /**
+         * Books several slots in one room where two requests conflict with each other.
+         * <p>
+         * Expectation: The room is loaded and saved once, the conflicting request is rejected
+         * and only the booked slots are confirmed.
+         */
+        @Test
+        void book_rooms_saves_each_room_once_and_reports_conflicts() throws NotificationException {
+            //Arrange
+            Room room = new Room("room1", "Presidential suite");
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+            List<BookingRequest> requests = List.of(
+                    new BookingRequest("room1", now.plusHours(1), now.plusHours(2)),
+                    new BookingRequest("room1", now.plusHours(3), now.plusHours(4)),
+                    new BookingRequest("room1", now.plusHours(1).plusMinutes(30), now.plusHours(5)));
+
+            //Act
+            List<BookingResult> results = bookingSystem.bookRooms(requests);
+
+            //Assert
+            assertThat(results).extracting(BookingResult::status).containsExactly(
+                    BookingResult.Status.BOOKED, BookingResult.Status.BOOKED, BookingResult.Status.CONFLICT);
+            assertThat(room.getBookings()).hasSize(2);
+            verify(roomRepository, times(1)).findById("room1");
+            verify(roomRepository, times(1)).save(room);
+            verify(notificationService, times(2)).sendBookingConfirmation(any());
+        }
+
+        /**
+         * Invalid requests and unknown rooms are reported per request without aborting the batch.
+         */
+        @Test
+        void book_rooms_reports_invalid_requests_and_missing_rooms() {
+            //Arrange
+            Room room = new Room("room1", "Presidential suite");
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+            when(roomRepository.findById("missing")).thenReturn(Optional.empty());
+            List<BookingRequest> requests = List.of(
+                    new BookingRequest("room1", now.minusHours(1), now.plusHours(1)),
+                    new BookingRequest("missing", now.plusHours(1), now.plusHours(2)),
+                    new BookingRequest("room1", now.plusHours(1), now.plusHours(2)));
+
+            //Act
+            List<BookingResult> results = bookingSystem.bookRooms(requests);
+
+            //Assert
+            assertThat(results).extracting(BookingResult::status).containsExactly(
+                    BookingResult.Status.INVALID, BookingResult.Status.ROOM_NOT_FOUND, BookingResult.Status.BOOKED);
+            assertThat(results.getFirst().message()).contains("Kan inte boka tid i dåtid");
+            verify(roomRepository, times(1)).save(any());
+        }
+    }
+
+    /**
+     * Tests for streaming and paginated availability search.
+     * Verifies that scanning stops once enough free rooms have been found.
+     */
+    @Nested
+    class AvailabilityStreamingTests {
+
+        /**
+         * Requests a page of two free rooms out of many.
+         * <p>
+         * Expectation: The page skips the offset, and rooms after the page are never pulled from the repository.
+         */
+        @Test
+        void paged_search_stops_scanning_when_page_is_full() {
+            //Arrange
+            LocalDateTime startDate = now.plusDays(1);
+            LocalDateTime endDate = now.plusDays(1).plusHours(1);
+            Room busy = new Room("room0", "Upptaget rum");
+            busy.addBooking(new Booking("B1", "room0", startDate, endDate));
+            AtomicInteger pulled = new AtomicInteger();
+            when(roomRepository.streamAll()).thenReturn(Stream.concat(Stream.of(busy),
+                            Stream.iterate(1, i -> i + 1).map(i -> new Room("room" + i, "Rum " + i)))
+                    .peek(room -> pulled.incrementAndGet()));
+
+            //Act
+            List<Room> page = bookingSystem.getAvailableRooms(startDate, endDate, 1, 2);
+
+            //Assert
+            assertThat(page).extracting(Room::getId).containsExactly("room2", "room3");
+            assertThat(pulled).hasValue(4);
+            verify(roomRepository, never()).findAll();
+        }
+
+        /**
+         * Validates that the paged search rejects negative offsets and limits.
+         */
+        @Test
+        void paged_search_with_negative_limit_should_throw_exception() {
+            //Act + Assert
+            assertThatThrownBy(() ->
+                    bookingSystem.getAvailableRooms(now, now.plusHours(1), 0, -1))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Offset och gräns kan inte vara negativa");
+        }
+    }
+
+    /**
+     * Tests for archiving finished bookings.
+     * Verifies that only bookings past the retention period leave the room.
+     */
+    @Nested
+    class CompactionTests {
+        private final InMemoryBookingArchive archive = new InMemoryBookingArchive();
+
+        @BeforeEach
+        void setUp() {
+            bookingSystem.setBookingArchive(archive);
+        }
+
+        /**
+         * Archives a room's finished booking while keeping bookings inside the retention period.
+         * <p>
+         * Expectation: Only the old booking is archived and the room is saved once.
+         */
+        @Test
+        void archive_finished_bookings_moves_old_bookings_to_archive() {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("old", "room1", now.minusDays(10), now.minusDays(9)));
+            room.addBooking(new Booking("recent", "room1", now.minusHours(5), now.minusHours(4)));
+            room.addBooking(new Booking("future", "room1", now.plusDays(1), now.plusDays(2)));
+            Room untouched = new Room("room2", "Garden Room");
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findAll()).thenReturn(List.of(room, untouched));
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+            when(roomRepository.findById("room2")).thenReturn(Optional.of(untouched));
+
+            //Act
+            int archived = bookingSystem.archiveFinishedBookings(Duration.ofDays(1));
+
+            //Assert
+            assertThat(archived).isEqualTo(1);
+            assertThat(archive.find("old")).isPresent();
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactly("recent", "future");
+            verify(roomRepository).save(room);
+            verify(roomRepository, never()).save(untouched);
+        }
+
+        /**
+         * A repository returning copies may hand out a stale room from findAll. The room is
+         * read again under the lock, so a booking made in between survives the archiving.
+         * <p>
+         * Expectation: The current room is saved with the new booking, the stale copy is not.
+         */
+        @Test
+        void archive_finished_bookings_rereads_room_under_lock() {
+            //Arrange
+            Room stale = new Room("room1", "Ocean Suite");
+            stale.addBooking(new Booking("old", "room1", now.minusDays(10), now.minusDays(9)));
+            Room current = new Room("room1", "Ocean Suite");
+            current.addBooking(new Booking("old", "room1", now.minusDays(10), now.minusDays(9)));
+            current.addBooking(new Booking("new", "room1", now.plusDays(1), now.plusDays(2)));
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findAll()).thenReturn(List.of(stale));
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(current));
+
+            //Act
+            int archived = bookingSystem.archiveFinishedBookings(Duration.ofDays(1));
+
+            //Assert
+            assertThat(archived).isEqualTo(1);
+            assertThat(current.getBookings()).extracting(Booking::getId).containsExactly("new");
+            verify(roomRepository).save(current);
+            verify(roomRepository, never()).save(stale);
+        }
+
+        /**
+         * A room deleted between listing and locking is skipped.
+         */
+        @Test
+        void archive_finished_bookings_skips_room_deleted_before_lock() {
+            //Arrange
+            Room listed = new Room("room1", "Ocean Suite");
+            listed.addBooking(new Booking("old", "room1", now.minusDays(10), now.minusDays(9)));
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findAll()).thenReturn(List.of(listed));
+            when(roomRepository.findById("room1")).thenReturn(Optional.empty());
+
+            //Act
+            int archived = bookingSystem.archiveFinishedBookings(Duration.ofDays(1));
+
+            //Assert
+            assertThat(archived).isZero();
+            assertThat(archive.find("old")).isEmpty();
+            verify(roomRepository, never()).save(any());
+        }
+
+        /**
+         * Cancelling an archived booking is rejected the same way as cancelling any finished booking.
+         */
+        @Test
+        void cancel_archived_booking_should_throw_exception() {
+            //Arrange
+            archive.archive(List.of(new Booking("old", "room1", now.minusDays(10), now.minusDays(9))));
+            when(roomRepository.findAll()).thenReturn(List.of());
+
+            //Act + Assert
+            assertThatThrownBy(() ->
+                    bookingSystem.cancelBooking("old"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Kan inte avboka påbörjad eller avslutad bokning");
+        }
+    }
+
+    /**
+     * Tests for the earliest free slot search across rooms.
+     */
+    @Nested
+    class EarliestSlotTests {
+        @BeforeEach
+        void setUp() {
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+        }
+
+        /**
+         * Two rooms are busy at the requested time; the one that frees up first wins.
+         * <p>
+         * Expectation: The slot starts at the first whole minute after room2's booking ends.
+         */
+        @Test
+        void find_earliest_slot_returns_room_that_frees_up_first() {
+            //Arrange
+            LocalDateTime nineOClock = now.plusDays(1).withHour(9);
+            Room room1 = new Room("room1", "Ocean Suite");
+            room1.addBooking(new Booking("B1", "room1", nineOClock, nineOClock.plusHours(3)));
+            Room room2 = new Room("room2", "Garden Room");
+            room2.addBooking(new Booking("B2", "room2", nineOClock, nineOClock.plusHours(1)));
+            room2.addBooking(new Booking("B3", "room2", nineOClock.plusHours(1).plusMinutes(30), nineOClock.plusHours(2)));
+            when(roomRepository.streamAll()).thenReturn(Stream.of(room1, room2));
+
+            //Act
+            Optional<AvailableSlot> slot = bookingSystem.findEarliestSlot(Duration.ofMinutes(60),
+                    nineOClock, nineOClock.plusHours(8), null);
+
+            //Assert
+            assertThat(slot).isPresent();
+            assertThat(slot.get().room()).isEqualTo(room2);
+            assertThat(slot.get().startTime()).isEqualTo(nineOClock.plusHours(2).plusMinutes(1));
+            assertThat(slot.get().endTime()).isEqualTo(nineOClock.plusHours(3).plusMinutes(1));
+        }
+
+        /**
+         * Rooms rejected by the filter are ignored and no slot is returned if nothing fits the window.
+         */
+        @Test
+        void find_earliest_slot_respects_filter_and_window() {
+            //Arrange
+            LocalDateTime nineOClock = now.plusDays(1).withHour(9);
+            Room free = new Room("room1", "Ocean Suite");
+            Room busy = new Room("room2", "Garden Room");
+            busy.addBooking(new Booking("B1", "room2", nineOClock, nineOClock.plusHours(3)));
+            when(roomRepository.streamAll()).thenReturn(Stream.of(free, busy));
+
+            //Act
+            Optional<AvailableSlot> slot = bookingSystem.findEarliestSlot(Duration.ofMinutes(60),
+                    nineOClock, nineOClock.plusHours(2), room -> room.getId().equals("room2"));
+
+            //Assert
+            assertThat(slot).isEmpty();
+        }
+    }
+
+    /**
+     * Tests for recurring series booked through the system.
+     */
+    @Nested
+    class RecurringBookingTests {
+        @BeforeEach
+        void setUp() {
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+        }
+
+        /**
+         * A weekly series is stored as one rule and blocks every occurrence.
+         * <p>
+         * Expectation: The series is booked, the room saved once and a later occurrence is busy.
+         */
+        @Test
+        void book_recurring_blocks_every_occurrence() throws NotificationException {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            LocalDateTime standUp = now.plusDays(1);
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+            //Act
+            Optional<RecurringBooking> series = bookingSystem.bookRecurring("room1", standUp,
+                    standUp.plusMinutes(15), RecurrenceRule.weekly(520));
+
+            //Assert
+            assertThat(series).isPresent();
+            assertThat(room.getSeries()).containsExactly(series.get());
+            assertThat(room.getBookings()).isEmpty();
+            assertThat(room.isAvailable(standUp.plusWeeks(300), standUp.plusWeeks(300).plusMinutes(5))).isFalse();
+            assertThat(room.isAvailable(standUp.plusWeeks(300).plusDays(1), standUp.plusWeeks(300).plusDays(1).plusHours(1))).isTrue();
+            verify(roomRepository).save(room);
+            verify(notificationService).sendBookingConfirmation(any(Booking.class));
+        }
+
+        /**
+         * A series overlapping an existing booking in any occurrence is rejected.
+         */
+        @Test
+        void book_recurring_returns_empty_when_an_occurrence_conflicts() {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            LocalDateTime standUp = now.plusDays(1);
+            room.addBooking(new Booking("B1", "room1", standUp.plusDays(70), standUp.plusDays(70).plusHours(1)));
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+            //Act
+            Optional<RecurringBooking> series = bookingSystem.bookRecurring("room1", standUp,
+                    standUp.plusMinutes(15), RecurrenceRule.weekly(52));
+
+            //Assert
+            assertThat(series).isEmpty();
+            assertThat(room.getSeries()).isEmpty();
+            verify(roomRepository, never()).save(any());
+        }
+
+        /**
+         * A single occurrence is cancelled by its occurrence id and frees only that slot.
+         */
+        @Test
+        void cancel_booking_removes_single_occurrence_of_series() throws NotificationException {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            LocalDateTime standUp = now.plusDays(1);
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+            RecurringBooking series = bookingSystem.bookRecurring("room1", standUp,
+                    standUp.plusMinutes(15), RecurrenceRule.weekly(10)).orElseThrow();
+
+            //Act
+            boolean cancelled = bookingSystem.cancelBooking(series.getId() + "#3");
+
+            //Assert
+            assertThat(cancelled).isTrue();
+            assertThat(room.hasBooking(series.getId() + "#3")).isFalse();
+            assertThat(room.isAvailable(standUp.plusWeeks(3), standUp.plusWeeks(3).plusMinutes(15))).isTrue();
+            assertThat(room.isAvailable(standUp.plusWeeks(4), standUp.plusWeeks(4).plusMinutes(15))).isFalse();
+            verify(notificationService).sendCancellationConfirmation(any(Booking.class));
+        }
+    }
+
+    /**
+     * Tests for latency and outcome metrics recorded by the system.
+     */
+    @Nested
+    class MetricsTests {
+        private final RecordingBookingMetrics metrics = new RecordingBookingMetrics();
+
+        @BeforeEach
+        void setUp() {
+            bookingSystem.setMetrics(metrics);
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+        }
+
+        /**
+         * Booked, conflicting and invalid bookings are counted and each call is timed,
+         * together with the repository calls it makes.
+         */
+        @Test
+        void book_room_records_outcomes_and_latencies() {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+            //Act
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            assertThatThrownBy(() -> bookingSystem.bookRoom("room1", now.minusDays(1), now.plusDays(1)))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            //Assert
+            RecordingBookingMetrics.Snapshot snapshot = metrics.snapshot();
+            assertThat(snapshot.outcome(BookingMetrics.Outcome.BOOKED)).isEqualTo(1);
+            assertThat(snapshot.outcome(BookingMetrics.Outcome.CONFLICT)).isEqualTo(1);
+            assertThat(snapshot.outcome(BookingMetrics.Outcome.INVALID)).isEqualTo(1);
+            assertThat(snapshot.latencies().get(BookingMetrics.Operation.BOOK_ROOM).count()).isEqualTo(3);
+            assertThat(snapshot.latencies().get(BookingMetrics.Operation.REPOSITORY_FIND).count()).isEqualTo(2);
+            assertThat(snapshot.latencies().get(BookingMetrics.Operation.REPOSITORY_SAVE).count()).isEqualTo(1);
+            assertThat(snapshot.latencies().get(BookingMetrics.Operation.NOTIFICATION_SEND).count()).isEqualTo(1);
+        }
+
+        /**
+         * A swallowed notification failure is counted and shows up in the exported snapshot.
+         */
+        @Test
+        void swallowed_notification_failure_is_counted_and_exported() throws NotificationException {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+            doThrow(new NotificationException("Error sending notification"))
+                    .when(notificationService).sendBookingConfirmation(any());
+            AtomicInteger exported = new AtomicInteger();
+
+            //Act
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            metrics.exportTo(snapshot ->
+                    exported.set((int) snapshot.outcome(BookingMetrics.Outcome.NOTIFICATION_FAILED)));
+
+            //Assert
+            assertThat(exported.get()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Tests for writing only the changed bookings to repositories that support it.
+     */
+    @Nested
+    class DeltaPersistenceTests {
+
+        /**
+         * A repository accepting the delta gets only the new booking and no whole-room save.
+         */
+        @Test
+        void book_room_writes_delta_when_repository_supports_it() {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("B1", "room1", now.plusDays(3), now.plusDays(4)));
+            room.markSaved();
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+            when(roomRepository.applyChanges(eq("room1"), any(), any())).thenReturn(true);
+
+            //Act
+            boolean booked = bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+
+            //Assert
+            assertThat(booked).isTrue();
+            verify(roomRepository).applyChanges(eq("room1"),
+                    argThat(added -> added.size() == 1 && added.iterator().next().getStartTime().equals(now.plusDays(1))),
+                    argThat(Collection::isEmpty));
+            verify(roomRepository, never()).save(any());
+            assertThat(room.pendingChanges().isEmpty()).isTrue();
+        }
+
+        /**
+         * Repositories without delta support get the whole room saved, as before.
+         */
+        @Test
+        void cancel_booking_falls_back_to_save_without_delta_support() {
+            //Arrange
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("B1", "room1", now.plusDays(1), now.plusDays(2)));
+            room.markSaved();
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findAll()).thenReturn(List.of(room));
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+            //Act
+            boolean cancelled = bookingSystem.cancelBooking("B1");
+
+            //Assert
+            assertThat(cancelled).isTrue();
+            verify(roomRepository).applyChanges("room1", List.of(), Set.of("B1"));
+            verify(roomRepository).save(room);
+        }
+    }
+
+    /**
+     * Tests for tentative holds and their expiry.
+     */
+    @Nested
+    class HoldTests {
+        private final AtomicReference<LocalDateTime> clock = new AtomicReference<>(now);
+        private final Room room = new Room("room1", "Ocean Suite");
+
+        @BeforeEach
+        void setUp() {
+            when(timeProvider.getCurrentTime()).thenAnswer(invocation -> clock.get());
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        }
+
+        /**
+         * A hold blocks the room without saving or notifying, and confirming it books it under the hold id.
+         */
+        @Test
+        void confirmed_hold_becomes_booking_with_same_id() throws NotificationException {
+            //Arrange
+            Hold hold = bookingSystem.holdRoom("room1", now.plusDays(1), now.plusDays(2), Duration.ofMinutes(10))
+                    .orElseThrow();
+
+            //Act
+            boolean bookedDuringHold = bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            verify(roomRepository, never()).save(any());
+            boolean confirmed = bookingSystem.confirmHold(hold.id());
+
+            //Assert
+            assertThat(bookedDuringHold).isFalse();
+            assertThat(confirmed).isTrue();
+            assertThat(room.getHolds()).isEmpty();
+            assertThat(room.getBooking(hold.id()).getStartTime()).isEqualTo(now.plusDays(1));
+            verify(roomRepository).save(room);
+            verify(notificationService).sendBookingConfirmation(room.getBooking(hold.id()));
+        }
+
+        /**
+         * A released hold frees the room at once, without saving or notifying.
+         */
+        @Test
+        void released_hold_frees_room_without_side_effects() {
+            //Arrange
+            Hold hold = bookingSystem.holdRoom("room1", now.plusDays(1), now.plusDays(2), Duration.ofMinutes(10))
+                    .orElseThrow();
+
+            //Act
+            boolean released = bookingSystem.releaseHold(hold.id());
+
+            //Assert
+            assertThat(released).isTrue();
+            assertThat(room.isAvailable(now.plusDays(1), now.plusDays(2))).isTrue();
+            assertThat(bookingSystem.confirmHold(hold.id())).isFalse();
+            verifyNoInteractions(notificationService);
+            verify(roomRepository, never()).save(any());
+        }
+
+        /**
+         * Once the time runs out the hold is expired by the timer wheel and cannot be confirmed.
+         */
+        @Test
+        void expired_hold_is_removed_and_cannot_be_confirmed() {
+            //Arrange
+            Hold hold = bookingSystem.holdRoom("room1", now.plusDays(1), now.plusDays(2), Duration.ofMinutes(10))
+                    .orElseThrow();
+
+            //Act
+            clock.set(now.plusMinutes(10).plusSeconds(1));
+            int expired = bookingSystem.expireHolds();
+
+            //Assert
+            assertThat(expired).isEqualTo(1);
+            assertThat(room.hasHold(hold.id())).isFalse();
+            assertThat(bookingSystem.confirmHold(hold.id())).isFalse();
+            assertThat(bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2))).isTrue();
+        }
+
+        /**
+         * A bulk booking expires holds first, so an expired hold does not block its requests.
+         */
+        @Test
+        void bulk_booking_is_not_blocked_by_expired_hold() {
+            //Arrange
+            holdAndLetExpire();
+
+            //Act
+            List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                    new BookingRequest("room1", now.plusDays(1), now.plusDays(2))));
+
+            //Assert
+            assertThat(results).extracting(BookingResult::status).containsExactly(BookingResult.Status.BOOKED);
+            assertThat(room.getHolds()).isEmpty();
+        }
+
+        /**
+         * A recurring booking expires holds first, so an expired hold does not block the series.
+         */
+        @Test
+        void recurring_booking_is_not_blocked_by_expired_hold() {
+            //Arrange
+            holdAndLetExpire();
+
+            //Act
+            Optional<RecurringBooking> series = bookingSystem.bookRecurring("room1", now.plusDays(1),
+                    now.plusDays(1).plusHours(1), RecurrenceRule.daily(3));
+
+            //Assert
+            assertThat(series).isPresent();
+            assertThat(room.getHolds()).isEmpty();
+        }
+
+        /**
+         * Streaming available rooms expires holds first, so a room with only an expired hold is listed.
+         */
+        @Test
+        void streamed_availability_ignores_expired_hold() {
+            //Arrange
+            holdAndLetExpire();
+            when(roomRepository.streamAll()).thenReturn(Stream.of(room));
+
+            //Act
+            List<Room> available;
+            try (Stream<Room> rooms = bookingSystem.streamAvailableRooms(now.plusDays(1), now.plusDays(2))) {
+                available = rooms.toList();
+            }
+
+            //Assert
+            assertThat(available).containsExactly(room);
+        }
+
+        /**
+         * The slot search expires holds first, so an expired hold does not hide the earliest slot.
+         */
+        @Test
+        void earliest_slot_search_ignores_expired_hold() {
+            //Arrange
+            holdAndLetExpire();
+            when(roomRepository.streamAll()).thenReturn(Stream.of(room));
+
+            //Act
+            Optional<AvailableSlot> slot = bookingSystem.findEarliestSlot(Duration.ofHours(1),
+                    now.plusDays(1), now.plusDays(2), null);
+
+            //Assert
+            assertThat(slot).isPresent();
+            assertThat(slot.get().startTime()).isEqualTo(now.plusDays(1));
+        }
+
+        private void holdAndLetExpire() {
+            bookingSystem.holdRoom("room1", now.plusDays(1), now.plusDays(2), Duration.ofMinutes(10)).orElseThrow();
+            clock.set(now.plusMinutes(10).plusSeconds(1));
+        }
+    }
+
+    /**
+     * Tests for caching of availability results per time window.
+     */
+    @Nested
+    class AvailabilityCacheTests {
+        private final AvailabilityCache cache = new AvailabilityCache();
+        private final Room room1 = new Room("room1", "Ocean Suite");
+        private final Room room2 = new Room("room2", "Garden Room");
+        // Körs medan en fråga läser rummen, för att simulera samtidiga ändringar
+        private Runnable duringQuery = () -> { };
+
+        @BeforeEach
+        void setUp() {
+            bookingSystem.setAvailabilityCache(cache);
+            when(roomRepository.findAll()).thenAnswer(invocation -> {
+                duringQuery.run();
+                return List.of(room1, room2);
+            });
+        }
+
+        /**
+         * A repeated query is answered from the cache without scanning the rooms again.
+         */
+        @Test
+        void repeated_query_is_served_from_cache() {
+            //Act
+            List<Room> first = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            List<Room> second = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+
+            //Assert
+            assertThat(second).isEqualTo(first).containsExactly(room1, room2);
+            verify(roomRepository, times(1)).findAll();
+            assertThat(cache.getStats().hits()).isEqualTo(1);
+        }
+
+        /**
+         * A booking only drops the cached windows it overlaps.
+         * <p>
+         * Expectation: The overlapping window is recomputed and no longer lists the room, the other stays cached.
+         */
+        @Test
+        void booking_invalidates_only_overlapping_windows() {
+            //Arrange
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            bookingSystem.getAvailableRooms(now.plusDays(5), now.plusDays(6));
+
+            //Act
+            bookingSystem.bookRoom("room1", now.plusDays(1).plusHours(2), now.plusDays(1).plusHours(4));
+            List<Room> overlapping = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            List<Room> untouched = bookingSystem.getAvailableRooms(now.plusDays(5), now.plusDays(6));
+
+            //Assert
+            assertThat(overlapping).containsExactly(room2);
+            assertThat(untouched).containsExactly(room1, room2);
+            verify(roomRepository, times(3)).findAll();
+        }
+
+        /**
+         * A change in another window while a query runs does not keep its result out of the cache.
+         */
+        @Test
+        void result_is_cached_despite_concurrent_change_elsewhere() {
+            //Arrange
+            duringQuery = () -> cache.invalidate(now.plusDays(5), now.plusDays(6));
+
+            //Act
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+
+            //Assert
+            assertThat(cache.getStats().hits()).isEqualTo(1);
+            verify(roomRepository, times(1)).findAll();
+        }
+
+        /**
+         * A change overlapping the window while a query runs keeps the possibly stale result out of the cache.
+         */
+        @Test
+        void result_is_not_cached_after_concurrent_overlapping_change() {
+            //Arrange
+            duringQuery = () -> cache.invalidate(now.plusDays(1).plusHours(2), now.plusDays(1).plusHours(4));
+
+            //Act
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+
+            //Assert
+            assertThat(cache.getStats().hits()).isZero();
+            verify(roomRepository, times(2)).findAll();
+        }
+
+        /**
+         * Rolling windows keep being cached once the cache is full.
+         * <p>
+         * Expectation: Windows that have ended are dropped, so every repeated query is a hit.
+         */
+        @Test
+        void rolling_windows_keep_being_cached() {
+            //Arrange
+            AvailabilityCache small = new AvailabilityCache(4);
+            bookingSystem.setAvailabilityCache(small);
+            AtomicReference<LocalDateTime> clock = new AtomicReference<>(now);
+            when(timeProvider.getCurrentTime()).thenAnswer(invocation -> clock.get());
+
+            //Act
+            for (int hour = 0; hour < 10; hour++) {
+                clock.set(now.plusHours(hour));
+                bookingSystem.getAvailableRooms(clock.get(), clock.get().plusHours(1));
+                bookingSystem.getAvailableRooms(clock.get(), clock.get().plusHours(1));
+            }
+
+            //Assert
+            assertThat(small.getStats().hits()).isEqualTo(10);
+            assertThat(small.getStats().size()).isLessThanOrEqualTo(4);
+        }
+
+        /**
+         * When the cache is full of live windows the least recently used one is evicted.
+         */
+        @Test
+        void evicts_least_recently_used_window() {
+            //Arrange
+            AvailabilityCache small = new AvailabilityCache(2);
+            bookingSystem.setAvailabilityCache(small);
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            bookingSystem.getAvailableRooms(now.plusDays(3), now.plusDays(4));
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+
+            //Act
+            bookingSystem.getAvailableRooms(now.plusDays(5), now.plusDays(6));
+            bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            bookingSystem.getAvailableRooms(now.plusDays(3), now.plusDays(4));
+
+            //Assert
+            assertThat(small.getStats().hits()).isEqualTo(2);
+            assertThat(small.getStats().evictions()).isEqualTo(2);
+            verify(roomRepository, times(4)).findAll();
+        }
+    }
+
+    /**
+     * Tests for publishing booking changes to the change feed.
+     */
+    @Nested
+    class ChangeFeedTests {
+
+        /**
+         * A booking and its cancellation are published in order, failed attempts are not.
+         */
+        @Test
+        void book_and_cancel_publish_ordered_events() {
+            //Arrange
+            BookingChangeFeed feed = new BookingChangeFeed();
+            bookingSystem.setChangeFeed(feed);
+            BookingChangeFeed.Subscription subscription = feed.subscribe();
+            Room room = new Room("room1", "Ocean Suite");
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+            //Act
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            String bookingId = room.getBookings().get(0).getId();
+            bookingSystem.cancelBooking(bookingId);
+            List<BookingEvent> events = subscription.poll(10);
+
+            //Assert
+            assertThat(events).extracting(BookingEvent::sequence).containsExactly(1L, 2L);
+            assertThat(events).extracting(BookingEvent::type)
+                    .containsExactly(BookingEvent.Type.CREATED, BookingEvent.Type.CANCELLED);
+            assertThat(events).extracting(event -> event.booking().getId()).containsOnly(bookingId);
+        }
+    }
+
+    /**
+     * Tests for the waitlist and its promotion when intervals are freed.
+     */
+    @Nested
+    class WaitlistTests {
+        private final AtomicReference<LocalDateTime> clock = new AtomicReference<>(now);
+        private final Room room = new Room("room1", "Ocean Suite");
+
+        @BeforeEach
+        void setUp() {
+            when(timeProvider.getCurrentTime()).thenAnswer(invocation -> clock.get());
+            when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        }
+
+        /**
+         * A cancellation books the oldest waiting request that fits; a later overlapping one keeps waiting.
+         */
+        @Test
+        void cancellation_promotes_oldest_fitting_request() throws NotificationException {
+            //Arrange
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            String bookingId = room.getBookings().getFirst().getId();
+            String first = bookingSystem.joinWaitlist("room1", now.plusDays(1), now.plusDays(1).plusHours(2));
+            String second = bookingSystem.joinWaitlist("room1", now.plusDays(1).plusHours(1), now.plusDays(2));
+
+            //Act
+            boolean cancelled = bookingSystem.cancelBooking(bookingId);
+
+            //Assert
+            assertThat(cancelled).isTrue();
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactly(first);
+            assertThat(bookingSystem.getWaitlist("room1")).extracting(Booking::getId).containsExactly(second);
+            verify(notificationService).sendBookingConfirmation(room.getBooking(first));
+        }
+
+        /**
+         * Requests that are still blocked by another booking stay on the list until withdrawn.
+         */
+        @Test
+        void blocked_request_keeps_waiting_until_withdrawn() {
+            //Arrange
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(2));
+            bookingSystem.bookRoom("room1", now.plusDays(3), now.plusDays(4));
+            String cancelledId = room.getBookings().getFirst().getId();
+            String waiting = bookingSystem.joinWaitlist("room1", now.plusDays(1), now.plusDays(4));
+
+            //Act
+            bookingSystem.cancelBooking(cancelledId);
+            boolean withdrawn = bookingSystem.leaveWaitlist(waiting);
+
+            //Assert
+            assertThat(room.hasBooking(waiting)).isFalse();
+            assertThat(withdrawn).isTrue();
+            assertThat(bookingSystem.getWaitlist("room1")).isEmpty();
+            assertThat(bookingSystem.leaveWaitlist(waiting)).isFalse();
+        }
+
+        /**
+         * Requests whose start passes without a freed interval are dropped instead of waiting forever.
+         */
+        @Test
+        void started_requests_are_purged() {
+            //Arrange
+            bookingSystem.bookRoom("room1", now.plusDays(1), now.plusDays(5));
+            String early = bookingSystem.joinWaitlist("room1", now.plusDays(1), now.plusDays(2));
+            String late = bookingSystem.joinWaitlist("room1", now.plusDays(4), now.plusDays(5));
+
+            //Act
+            clock.set(now.plusDays(3));
+            List<Booking> waiting = bookingSystem.getWaitlist("room1");
+
+            //Assert
+            assertThat(waiting).extracting(Booking::getId).containsExactly(late);
+            assertThat(bookingSystem.leaveWaitlist(early)).isFalse();
+        }
+
+        /**
+         * A request for a free interval is booked at once, and one blocked by a hold is promoted on release.
+         */
+        @Test
+        void released_hold_promotes_waiting_request() {
+            //Arrange
+            String direct = bookingSystem.joinWaitlist("room1", now.plusDays(5), now.plusDays(6));
+            Hold hold = bookingSystem.holdRoom("room1", now.plusDays(1), now.plusDays(2), Duration.ofMinutes(10))
+                    .orElseThrow();
+            String waiting = bookingSystem.joinWaitlist("room1", now.plusDays(1), now.plusDays(2));
+
+            //Act
+            bookingSystem.releaseHold(hold.id());
+
+            //Assert
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactly(waiting, direct);
+            assertThat(bookingSystem.getWaitlist("room1")).isEmpty();
+        }
+    }
+
+    /**
+     * Tests for attribute-filtered availability queries.
+     */
+    @Nested
+    class RoomFilterTests {
+        private final Room small = new Room("room1", "Study", RoomAttributes.of(4, "North", "whiteboard"));
+        private final Room large = new Room("room2", "Hall", RoomAttributes.of(40, "North", "projector", "whiteboard"));
+        private final Room remote = new Room("room3", "Annex", RoomAttributes.of(40, "South", "projector"));
+
+        @BeforeEach
+        void setUp() {
+            when(roomRepository.findAll()).thenReturn(List.of(small, large, remote));
+            when(roomRepository.streamAll()).thenCallRealMethod();
+            when(roomRepository.findByAttributes(any())).thenCallRealMethod();
+        }
+
+        /**
+         * Capacity, equipment and building criteria are all applied, together with availability.
+         */
+        @Test
+        void returns_only_free_rooms_matching_every_criterion() {
+            //Arrange
+            large.addBooking(new Booking("B1", "room2", now.plusDays(1), now.plusDays(2)));
+            RoomFilter projector = RoomFilter.any().withMinCapacity(10).withEquipment("projector");
+
+            //Act
+            List<Room> anyBuilding = bookingSystem.getAvailableRooms(now.plusDays(3), now.plusDays(4), projector);
+            List<Room> booked = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2), projector);
+            List<Room> north = bookingSystem.getAvailableRooms(now.plusDays(3), now.plusDays(4),
+                    projector.inBuilding("North"));
+
+            //Assert
+            assertThat(anyBuilding).containsExactly(large, remote);
+            assertThat(booked).containsExactly(remote);
+            assertThat(north).containsExactly(large);
+        }
+
+        /**
+         * Criteria no room satisfies give an empty result, and an empty filter returns every free room.
+         */
+        @Test
+        void unmatched_and_empty_filters() {
+            //Act
+            List<Room> none = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2),
+                    RoomFilter.any().withEquipment("sauna"));
+            List<Room> all = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2), RoomFilter.any());
+
+            //Assert
+            assertThat(none).isEmpty();
+            assertThat(all).containsExactly(small, large, remote);
+        }
+    }
+
+    /**
+     * Tests for parallel availability evaluation.
+     */
+    @Nested
+    class ParallelAvailabilityTests {
+
+        /**
+         * Above the threshold the rooms are checked in the dedicated pool, with the result in repository order.
+         */
+        @Test
+        void parallel_check_matches_sequential_order() {
+            //Arrange
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                Room room = new Room("room" + i, "Room " + i);
+                if (i % 3 == 0) {
+                    room.addBooking(new Booking("B" + i, room.getId(), now.plusDays(1), now.plusDays(2)));
+                }
+                rooms.add(room);
+            }
+            when(roomRepository.findAll()).thenReturn(rooms);
+            List<Room> expected = rooms.stream().filter(room -> room.getBookings().isEmpty()).toList();
+
+            //Act
+            List<Room> available;
+            try (ForkJoinPool pool = new ForkJoinPool(4)) {
+                bookingSystem.setParallelAvailability(pool, 100);
+                available = bookingSystem.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+            }
+
+            //Assert
+            assertThat(available).containsExactlyElementsOf(expected);
+        }
+
+        /**
+         * A threshold below one is rejected.
+         */
+        @Test
+        void rejects_invalid_threshold() {
+            try (ForkJoinPool pool = new ForkJoinPool(1)) {
+                //Act + Assert
+                assertThatThrownBy(() -> bookingSystem.setParallelAvailability(pool, 0))
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link CachingRoomRepository}.
+ * The delegate repository is mocked to count how often the underlying store is reached.
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingRoomRepositoryTest {
+
+    @Mock
+    private RoomRepository delegate;
+
+    private final Room room1 = new Room("room1", "Ocean Suite");
+    private final Room room2 = new Room("room2", "Presidential Suite");
+    private final Room room3 = new Room("room3", "Garden Room");
+
+    /**
+     * The second lookup of the same id is served from the cache.
+     */
+    @Test
+    void repeated_find_by_id_hits_cache() {
+        //Arrange
+        CachingRoomRepository cache = new CachingRoomRepository(delegate, 10, CachingRoomRepository.EvictionPolicy.LRU);
+        when(delegate.findById("room1")).thenReturn(Optional.of(room1));
+
+        //Act
+        cache.findById("room1");
+        Optional<Room> result = cache.findById("room1");
+
+        //Assert
+        assertThat(result).contains(room1);
+        verify(delegate, times(1)).findById("room1");
+        assertThat(cache.getStats().hits()).isEqualTo(1);
+        assertThat(cache.getStats().misses()).isEqualTo(1);
+    }
+
+    /**
+     * With LRU the least recently used room is evicted when the cache is full.
+     */
+    @Test
+    void lru_evicts_least_recently_used_room() {
+        //Arrange
+        CachingRoomRepository cache = new CachingRoomRepository(delegate, 2, CachingRoomRepository.EvictionPolicy.LRU);
+        when(delegate.findById("room1")).thenReturn(Optional.of(room1));
+        when(delegate.findById("room2")).thenReturn(Optional.of(room2));
+        when(delegate.findById("room3")).thenReturn(Optional.of(room3));
+
+        //Act
+        cache.findById("room1");
+        cache.findById("room2");
+        cache.findById("room1");
+        cache.findById("room3");
+        cache.findById("room1");
+        cache.findById("room2");
+
+        //Assert
+        verify(delegate, times(1)).findById("room1");
+        verify(delegate, times(2)).findById("room2");
+        assertThat(cache.getStats().evictions()).isEqualTo(2);
+    }
+
+    /**
+     * With LFU the least frequently used room is evicted, even if it was used recently.
+     */
+    @Test
+    void lfu_evicts_least_frequently_used_room() {
+        //Arrange
+        CachingRoomRepository cache = new CachingRoomRepository(delegate, 2, CachingRoomRepository.EvictionPolicy.LFU);
+        when(delegate.findById("room1")).thenReturn(Optional.of(room1));
+        when(delegate.findById("room2")).thenReturn(Optional.of(room2));
+        when(delegate.findById("room3")).thenReturn(Optional.of(room3));
+
+        //Act
+        cache.findById("room1");
+        cache.findById("room1");
+        cache.findById("room1");
+        cache.findById("room2");
+        cache.findById("room3");
+        cache.findById("room1");
+
+        //Assert
+        verify(delegate, times(1)).findById("room1");
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+        assertThat(cache.getStats().size()).isEqualTo(2);
+    }
+
+    /**
+     * Saving writes through to the delegate, keeps the room cached and drops the findAll snapshot.
+     */
+    @Test
+    void save_writes_through_and_invalidates_find_all_snapshot() {
+        //Arrange
+        CachingRoomRepository cache = new CachingRoomRepository(delegate, 10, CachingRoomRepository.EvictionPolicy.LRU);
+        when(delegate.findAll()).thenReturn(List.of(room1));
+        cache.findAll();
+        cache.findAll();
+
+        //Act
+        cache.save(room2);
+        cache.findAll();
+        Optional<Room> saved = cache.findById("room2");
+
+        //Assert
+        verify(delegate).save(room2);
+        verify(delegate, times(2)).findAll();
+        verify(delegate, never()).findById("room2");
+        assertThat(saved).contains(room2);
+        assertThat(cache.getStats().snapshotHits()).isEqualTo(1);
+    }
+}
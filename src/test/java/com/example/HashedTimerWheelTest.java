@@ -0,0 +1,64 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link HashedTimerWheel} driven by a controllable clock.
+ */
+class HashedTimerWheelTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 1, 20, 10, 0);
+    private final AtomicReference<LocalDateTime> clock = new AtomicReference<>(start);
+
+    /**
+     * Timeouts fire once their deadline tick has passed, including ones several turns of the wheel away.
+     */
+    @Test
+    void fires_timeouts_at_their_deadline_across_wheel_turns() {
+        //Arrange
+        HashedTimerWheel wheel = new HashedTimerWheel(clock::get, Duration.ofSeconds(1), 8);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(start.plusSeconds(3), () -> fired.add("near"));
+        wheel.schedule(start.plusSeconds(3 + 8 * 2), () -> fired.add("far"));
+
+        //Act + Assert
+        clock.set(start.plusSeconds(2));
+        assertThat(wheel.advance()).isZero();
+        clock.set(start.plusSeconds(3));
+        assertThat(wheel.advance()).isEqualTo(1);
+        assertThat(fired).containsExactly("near");
+        clock.set(start.plusSeconds(18));
+        assertThat(wheel.advance()).isZero();
+        clock.set(start.plusMinutes(5));
+        assertThat(wheel.advance()).isEqualTo(1);
+        assertThat(fired).containsExactly("near", "far");
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+     * A cancelled timeout never fires.
+     */
+    @Test
+    void cancelled_timeout_does_not_fire() {
+        //Arrange
+        HashedTimerWheel wheel = new HashedTimerWheel(clock::get, Duration.ofSeconds(1), 8);
+        List<String> fired = new ArrayList<>();
+        HashedTimerWheel.Timeout timeout = wheel.schedule(start.plusSeconds(1), () -> fired.add("cancelled"));
+
+        //Act
+        timeout.cancel();
+        clock.set(start.plusSeconds(5));
+        wheel.advance();
+
+        //Assert
+        assertThat(fired).isEmpty();
+    }
+}
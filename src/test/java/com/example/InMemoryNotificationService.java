@@ -0,0 +1,40 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory {@link NotificationService} for tests. Records every delivered
+ * notification and can be told to fail a number of upcoming sends.
+ */
+class InMemoryNotificationService implements NotificationService {
+
+    private final List<Notification> delivered = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        record(new Notification(Notification.Type.BOOKING_CONFIRMATION, booking));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        record(new Notification(Notification.Type.CANCELLATION_CONFIRMATION, booking));
+    }
+
+    public void failNext(int times) {
+        failuresLeft.set(times);
+    }
+
+    public List<Notification> getDelivered() {
+        return List.copyOf(delivered);
+    }
+
+    private void record(Notification notification) throws NotificationException {
+        if (failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            throw new NotificationException("Simulerat fel vid utskick");
+        }
+        delivered.add(notification);
+    }
+}
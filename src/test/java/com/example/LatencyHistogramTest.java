@@ -0,0 +1,54 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ * Verifies the bucket layout and that percentiles stay within the histogram's precision.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Every value lands in a bucket whose highest equivalent value is at most 1/16 above it.
+     */
+    @Test
+    void bucket_error_is_bounded_across_the_long_range() {
+        //Arrange
+        Random random = new Random(11);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+
+            //Act
+            long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+
+            //Assert
+            assertThat(highest).isGreaterThanOrEqualTo(value);
+            assertThat(highest - value).isLessThanOrEqualTo(value / 16);
+        }
+    }
+
+    /**
+     * Percentiles of a uniform distribution are close to the exact ones.
+     */
+    @Test
+    void percentiles_match_recorded_distribution() {
+        //Arrange
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        //Act
+        LongStream.rangeClosed(1, 10_000).forEach(value -> histogram.record(value * 1_000));
+
+        //Assert
+        assertThat(histogram.count()).isEqualTo(10_000);
+        assertThat(histogram.max()).isEqualTo(10_000_000);
+        assertThat(histogram.valueAtPercentile(50)).isBetween(5_000_000L, 5_000_000L * 17 / 16);
+        assertThat(histogram.valueAtPercentile(99)).isBetween(9_900_000L, 10_000_000L);
+        assertThat(histogram.mean()).isEqualTo(5_000_500.0);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link NotificationDispatcher}, using {@link InMemoryNotificationService}
+ * as a local stand-in for the mail gateway.
+ */
+class NotificationDispatcherTest {
+
+    private final Booking booking = new Booking("B1", "room1",
+            LocalDateTime.of(2026, 1, 21, 10, 0), LocalDateTime.of(2026, 1, 21, 11, 0));
+
+    /**
+     * Queued notifications are delivered in order once the dispatcher is closed.
+     */
+    @Test
+    void delivers_queued_notifications() {
+        //Arrange
+        InMemoryNotificationService gateway = new InMemoryNotificationService();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(gateway);
+
+        //Act
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.sendCancellationConfirmation(booking);
+        dispatcher.close();
+
+        //Assert
+        assertThat(gateway.getDelivered()).extracting(Notification::type)
+                .containsExactly(Notification.Type.BOOKING_CONFIRMATION, Notification.Type.CANCELLATION_CONFIRMATION);
+        assertThat(dispatcher.getSentCount()).isEqualTo(2);
+        assertThat(dispatcher.getQueueDepth()).isZero();
+    }
+
+    /**
+     * A failing gateway is retried with backoff until the notification goes through.
+     */
+    @Test
+    void retries_failed_notifications() {
+        //Arrange
+        InMemoryNotificationService gateway = new InMemoryNotificationService();
+        gateway.failNext(2);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(gateway, 10, 5, 3, Duration.ofMillis(1));
+
+        //Act
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.close();
+
+        //Assert
+        assertThat(gateway.getDelivered()).hasSize(1);
+        assertThat(dispatcher.getRetryCount()).isEqualTo(2);
+        assertThat(dispatcher.getFailedCount()).isZero();
+    }
+
+    /**
+     * Notifications are counted as failed once every attempt has been used.
+     */
+    @Test
+    void gives_up_after_max_attempts() {
+        //Arrange
+        InMemoryNotificationService gateway = new InMemoryNotificationService();
+        gateway.failNext(10);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(gateway, 10, 5, 3, Duration.ofMillis(1));
+
+        //Act
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.close();
+
+        //Assert
+        assertThat(gateway.getDelivered()).isEmpty();
+        assertThat(dispatcher.getFailedCount()).isEqualTo(1);
+    }
+
+    /**
+     * When the queue is full the send returns immediately and the notification is counted as dropped.
+     */
+    @Test
+    void drops_notifications_when_queue_is_full() throws InterruptedException {
+        //Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sending = new CountDownLatch(1);
+        NotificationService slowGateway = new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(slowGateway, 1, 1, 1, Duration.ofMillis(1));
+        dispatcher.sendBookingConfirmation(booking);
+        sending.await();
+
+        //Act
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.sendBookingConfirmation(booking);
+        release.countDown();
+        dispatcher.close();
+
+        //Assert
+        assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+        assertThat(dispatcher.getSentCount()).isEqualTo(2);
+    }
+
+    /**
+     * A batch-capable gateway receives several notifications in one call.
+     */
+    @Test
+    void sends_batches_to_batch_capable_gateway() {
+        //Arrange
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+        BatchNotificationService gateway = new BatchNotificationService() {
+            @Override
+            public void sendBatch(List<Notification> notifications) throws NotificationException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                batchSizes.add(notifications.size());
+            }
+
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(gateway, 100, 10, 1, Duration.ofMillis(1));
+
+        //Act
+        for (int i = 0; i < 11; i++) {
+            dispatcher.sendBookingConfirmation(booking);
+        }
+        release.countDown();
+        dispatcher.close();
+
+        //Assert
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(11);
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isLessThanOrEqualTo(10));
+        assertThat(batchSizes.size()).isLessThan(11);
+    }
+
+    /**
+     * An unchecked exception from the gateway is retried like any failure and does not stop later deliveries.
+     */
+    @Test
+    void survives_unchecked_exception_from_gateway() {
+        //Arrange
+        List<Notification.Type> delivered = new CopyOnWriteArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+        NotificationService flakyGateway = new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("Gatewayen är inte redo");
+                }
+                delivered.add(Notification.Type.BOOKING_CONFIRMATION);
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+                delivered.add(Notification.Type.CANCELLATION_CONFIRMATION);
+            }
+        };
+        NotificationDispatcher dispatcher = new NotificationDispatcher(flakyGateway, 10, 5, 3, Duration.ofMillis(1));
+
+        //Act
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.sendCancellationConfirmation(booking);
+        dispatcher.sendCancellationConfirmation(booking);
+        dispatcher.close();
+
+        //Assert
+        assertThat(delivered).containsExactlyInAnyOrder(Notification.Type.BOOKING_CONFIRMATION,
+                Notification.Type.CANCELLATION_CONFIRMATION, Notification.Type.CANCELLATION_CONFIRMATION);
+        assertThat(dispatcher.getSentCount()).isEqualTo(3);
+        assertThat(dispatcher.getRetryCount()).isEqualTo(1);
+        assertThat(dispatcher.getQueueDepth()).isZero();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link OccupancyIndex}.
+ * The bucketed answer must always agree with the exact per-room availability check.
+ */
+class OccupancyIndexTest {
+
+    private LocalDateTime now = LocalDateTime.of(2026, 1, 20, 10, 0);
+
+    /**
+     * A room without bookings in the spanned buckets is free, and a room booked
+     * for a whole bucket inside the window is busy.
+     */
+    @Test
+    void classifies_free_and_fully_booked_rooms() {
+        //Arrange
+        OccupancyIndex index = new OccupancyIndex(() -> now);
+        Room free = new Room("room1", "Ledigt rum");
+        Room busy = new Room("room2", "Upptaget rum");
+        busy.addBooking(new Booking("B1", "room2", now.plusHours(1), now.plusHours(3)));
+        LocalDateTime start = now.plusHours(1).plusMinutes(5);
+        LocalDateTime end = now.plusHours(2);
+
+        //Act
+        OccupancyIndex.Snapshot snapshot = index.snapshot(start, end, List.of(free, busy));
+
+        //Assert
+        assertThat(snapshot.isAvailable(free)).isTrue();
+        assertThat(snapshot.isAvailable(busy)).isFalse();
+    }
+
+    /**
+     * Randomly adds and removes bookings while time moves forward and compares every
+     * answer from the index with {@link Room#isAvailable(LocalDateTime, LocalDateTime)}.
+     */
+    @Test
+    void agrees_with_exact_check_while_bookings_change_and_time_passes() {
+        //Arrange
+        Random random = new Random(7);
+        OccupancyIndex index = new OccupancyIndex(() -> now, Duration.ofMinutes(15), Duration.ofDays(2));
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rooms.add(new Room("room" + i, "Rum " + i));
+        }
+        List<Booking> bookings = new ArrayList<>();
+
+        for (int step = 0; step < 3_000; step++) {
+            Room room = rooms.get(random.nextInt(rooms.size()));
+            if (!bookings.isEmpty() && random.nextInt(3) == 0) {
+                Booking removed = bookings.remove(random.nextInt(bookings.size()));
+                Room owner = rooms.get(Integer.parseInt(removed.getRoomId().substring(4)));
+                owner.removeBooking(removed.getId());
+                index.bookingRemoved(owner, removed);
+            } else {
+                LocalDateTime start = now.plusMinutes(random.nextInt(3 * 24 * 60));
+                Booking booking = new Booking("B" + step, room.getId(), start, start.plusMinutes(1 + random.nextInt(240)));
+                room.addBooking(booking);
+                bookings.add(booking);
+                index.bookingAdded(room, booking);
+            }
+            if (step % 100 == 0) {
+                now = now.plusMinutes(random.nextInt(90));
+            }
+
+            //Act
+            LocalDateTime queryStart = now.plusMinutes(random.nextInt(3 * 24 * 60));
+            LocalDateTime queryEnd = queryStart.plusMinutes(random.nextInt(180));
+            OccupancyIndex.Snapshot snapshot = index.snapshot(queryStart, queryEnd, rooms);
+
+            //Assert
+            for (Room candidate : rooms) {
+                assertThat(snapshot.isAvailable(candidate))
+                        .as("rum %s mellan %s och %s", candidate.getId(), queryStart, queryEnd)
+                        .isEqualTo(candidate.isAvailable(queryStart, queryEnd));
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for {@link PartitionedBookingSystem}.
+ * In-process shards with their own in-memory repositories stand in for remote nodes.
+ */
+class PartitionedBookingSystemTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 1, 20, 10, 0);
+    private final List<InMemoryRoomRepository> repositories = new ArrayList<>();
+    private final List<InMemoryNotificationService> notifications = new ArrayList<>();
+    private PartitionedBookingSystem system;
+
+    @BeforeEach
+    void setUp() {
+        List<BookingSystem> shards = new ArrayList<>();
+        for (int shard = 0; shard < 4; shard++) {
+            InMemoryRoomRepository repository = new InMemoryRoomRepository();
+            InMemoryNotificationService notificationService = new InMemoryNotificationService();
+            repositories.add(repository);
+            notifications.add(notificationService);
+            shards.add(new BookingSystem(() -> now, repository, notificationService));
+        }
+        system = new PartitionedBookingSystem(shards);
+        for (int i = 0; i < 20; i++) {
+            String roomId = "room" + i;
+            repositories.get(system.shardOf(roomId)).save(new Room(roomId, "Rum " + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        system.close();
+    }
+
+    /**
+     * A booking ends up only in the owning shard and is cancelled there through its prefixed id.
+     */
+    @Test
+    void booking_is_routed_to_owning_shard_and_cancelled_by_id() {
+        //Arrange
+        int shard = system.shardOf("room7");
+
+        //Act
+        boolean booked = system.bookRoom("room7", now.plusDays(1), now.plusDays(2));
+        Booking booking = repositories.get(shard).findById("room7").orElseThrow().getBookings().get(0);
+        boolean cancelled = system.cancelBooking(booking.getId());
+
+        //Assert
+        assertThat(booked).isTrue();
+        assertThat(booking.getId()).startsWith("p" + shard + "-");
+        assertThat(cancelled).isTrue();
+        assertThat(notifications.get(shard).getDelivered()).hasSize(2);
+        assertThat(repositories.get(shard).findById("room7").orElseThrow().getBookings()).isEmpty();
+    }
+
+    /**
+     * Availability is merged from all shards, leaving out only the booked room.
+     */
+    @Test
+    void get_available_rooms_merges_results_from_all_shards() {
+        //Arrange
+        system.bookRoom("room3", now.plusDays(1), now.plusDays(2));
+
+        //Act
+        List<Room> available = system.getAvailableRooms(now.plusDays(1), now.plusDays(2));
+
+        //Assert
+        assertThat(available).hasSize(19);
+        assertThat(available).extracting(Room::getId).doesNotContain("room3");
+    }
+
+    /**
+     * Validation errors thrown inside a shard reach the caller unchanged, and ids without a
+     * shard prefix are looked up in every shard.
+     */
+    @Test
+    void behaves_like_single_system_for_invalid_input_and_unknown_ids() {
+        //Act + Assert
+        assertThatThrownBy(() -> system.getAvailableRooms(now.plusDays(2), now.plusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Sluttid måste vara efter starttid");
+        assertThat(system.cancelBooking("okänt-id")).isFalse();
+    }
+}
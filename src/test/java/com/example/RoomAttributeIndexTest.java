@@ -0,0 +1,90 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link RoomAttributeIndex}.
+ */
+class RoomAttributeIndexTest {
+
+    private final RoomAttributeIndex index = new RoomAttributeIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.put(new Room("small", "Small Room", RoomAttributes.of(4, "north", "whiteboard")));
+        index.put(new Room("medium", "Medium Room", RoomAttributes.of(10, "north", "whiteboard", "projector")));
+        index.put(new Room("large", "Large Room", RoomAttributes.of(30, "north", "projector")));
+        index.put(new Room("south", "South Room", RoomAttributes.of(12, "south", "whiteboard", "projector")));
+        index.put(new Room("plain", "Plain Room"));
+    }
+
+    /**
+     * Capacity, building and equipment criteria are combined, so only rooms meeting all of them match.
+     */
+    @Test
+    void combined_filter_matches_rooms_meeting_every_criterion() {
+        //Arrange
+        RoomFilter filter = RoomFilter.any()
+                .withMinCapacity(8)
+                .inBuilding("north")
+                .withEquipment("whiteboard", "projector");
+
+        //Act
+        List<String> matches = index.matchingIds(filter);
+
+        //Assert
+        assertThat(matches).containsExactly("medium");
+    }
+
+    /**
+     * Each criterion on its own matches every room that has it, in the order the rooms were indexed.
+     */
+    @Test
+    void single_criteria_match_independently() {
+        //Act
+        List<String> byCapacity = index.matchingIds(RoomFilter.any().withMinCapacity(10));
+        List<String> byBuilding = index.matchingIds(RoomFilter.any().inBuilding("north"));
+        List<String> byEquipment = index.matchingIds(RoomFilter.any().withEquipment("projector"));
+        List<String> all = index.matchingIds(RoomFilter.any());
+
+        //Assert
+        assertThat(byCapacity).containsExactly("medium", "large", "south");
+        assertThat(byBuilding).containsExactly("small", "medium", "large");
+        assertThat(byEquipment).containsExactly("medium", "large", "south");
+        assertThat(all).containsExactly("small", "medium", "large", "south", "plain");
+    }
+
+    /**
+     * Criteria no room meets, such as unknown equipment or building, match nothing.
+     */
+    @Test
+    void unknown_equipment_or_building_matches_nothing() {
+        //Act
+        List<String> unknownEquipment = index.matchingIds(RoomFilter.any().withEquipment("piano"));
+        List<String> unknownBuilding = index.matchingIds(RoomFilter.any().inBuilding("east"));
+
+        //Assert
+        assertThat(unknownEquipment).isEmpty();
+        assertThat(unknownBuilding).isEmpty();
+    }
+
+    /**
+     * Putting a room again with other attributes moves it out of its old buckets and into the new ones.
+     */
+    @Test
+    void room_stored_with_new_attributes_is_reindexed() {
+        //Act
+        index.put(new Room("small", "Small Room", RoomAttributes.of(20, "south", "projector")));
+
+        //Assert
+        assertThat(index.matchingIds(RoomFilter.any().inBuilding("north"))).containsExactly("medium", "large");
+        assertThat(index.matchingIds(RoomFilter.any().withEquipment("whiteboard"))).containsExactly("medium", "south");
+        assertThat(index.matchingIds(RoomFilter.any().withMinCapacity(15).inBuilding("south")))
+                .containsExactly("small");
+    }
+}
@@ -0,0 +1,202 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for {@link Room}.
+ * Verifies that the interval-tree backed availability check keeps the inclusive
+ * overlap semantics of {@link Booking#overlaps(LocalDateTime, LocalDateTime)}.
+ */
+class RoomTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2026, 1, 20, 10, 0);
+
+    /**
+     * Bookings touching at the boundaries count as overlapping, since both ends are inclusive.
+     */
+    @Test
+    void adjacent_intervals_are_treated_as_overlapping() {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addBooking(new Booking("B1", "room1", base, base.plusHours(1)));
+
+        //Act + Assert
+        assertThat(room.isAvailable(base.plusHours(1), base.plusHours(2))).isFalse();
+        assertThat(room.isAvailable(base.minusHours(1), base)).isFalse();
+        assertThat(room.isAvailable(base.plusHours(1).plusMinutes(1), base.plusHours(2))).isTrue();
+        assertThat(room.isAvailable(base.minusHours(1), base.minusMinutes(1))).isTrue();
+    }
+
+    /**
+     * A removed booking no longer blocks availability and can no longer be looked up.
+     */
+    @Test
+    void removed_booking_frees_the_interval() {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addBooking(new Booking("B1", "room1", base, base.plusHours(1)));
+
+        //Act
+        room.removeBooking("B1");
+
+        //Assert
+        assertThat(room.isAvailable(base, base.plusHours(1))).isTrue();
+        assertThat(room.hasBooking("B1")).isFalse();
+        assertThatThrownBy(() -> room.getBooking("B1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Bokning finns inte");
+    }
+
+    /**
+     * Compares the availability check against a brute force scan over randomly
+     * added and removed bookings, to make sure rebalancing keeps the tree consistent.
+     */
+    @Test
+    void availability_matches_linear_scan_for_random_bookings() {
+        //Arrange
+        Random random = new Random(42);
+        Room room = new Room("room1", "Ocean Suite");
+        List<Booking> expected = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            if (!expected.isEmpty() && random.nextInt(4) == 0) {
+                Booking removed = expected.remove(random.nextInt(expected.size()));
+                room.removeBooking(removed.getId());
+            } else {
+                LocalDateTime start = base.plusMinutes(random.nextInt(50_000));
+                Booking booking = new Booking("B" + i, "room1", start, start.plusMinutes(random.nextInt(300)));
+                expected.add(booking);
+                room.addBooking(booking);
+            }
+
+            //Act + Assert
+            LocalDateTime queryStart = base.plusMinutes(random.nextInt(50_000));
+            LocalDateTime queryEnd = queryStart.plusMinutes(random.nextInt(120));
+            boolean linear = expected.stream().noneMatch(b -> b.overlaps(queryStart, queryEnd));
+            assertThat(room.isAvailable(queryStart, queryEnd)).isEqualTo(linear);
+        }
+    }
+
+    /**
+     * Only bookings that ended before the cutoff are removed and returned.
+     */
+    @Test
+    void remove_bookings_ending_before_cutoff_keeps_ongoing_and_future_bookings() {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addBooking(new Booking("past", "room1", base.minusDays(2), base.minusDays(1)));
+        room.addBooking(new Booking("ongoing", "room1", base.minusHours(1), base.plusHours(1)));
+        room.addBooking(new Booking("future", "room1", base.plusDays(1), base.plusDays(2)));
+
+        //Act
+        List<Booking> removed = room.removeBookingsEndingBefore(base);
+
+        //Assert
+        assertThat(removed).extracting(Booking::getId).containsExactly("past");
+        assertThat(room.getBookings()).extracting(Booking::getId).containsExactly("ongoing", "future");
+    }
+
+    /**
+     * Compares the arithmetic series overlap check against a scan over all materialized
+     * occurrences, for a daily series with every other week excepted.
+     */
+    @Test
+    void series_availability_matches_scan_over_occurrences() {
+        //Arrange
+        Random random = new Random(7);
+        Room room = new Room("room1", "Ocean Suite");
+        RecurrenceRule rule = RecurrenceRule.daily(200).every(2);
+        for (int week = 0; week < 60; week += 2) {
+            rule = rule.except(base.toLocalDate().plusWeeks(week));
+        }
+        RecurringBooking series = new RecurringBooking("S1", "room1", base, base.plusMinutes(90), rule);
+        room.addSeries(series);
+        List<Booking> occurrences = room.getBookings(base, base.plusDays(400));
+
+        for (int i = 0; i < 2_000; i++) {
+            //Act + Assert
+            LocalDateTime queryStart = base.minusDays(1).plusMinutes(random.nextInt(600_000));
+            LocalDateTime queryEnd = queryStart.plusMinutes(random.nextInt(2_000));
+            boolean linear = occurrences.stream().noneMatch(b -> b.overlaps(queryStart, queryEnd));
+            assertThat(room.isAvailable(queryStart, queryEnd)).isEqualTo(linear);
+        }
+    }
+
+    /**
+     * Removing an occurrence by id excepts it from the series without touching the others.
+     */
+    @Test
+    void removing_occurrence_excepts_it_from_series() {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addSeries(new RecurringBooking("S1", "room1", base, base.plusHours(1), RecurrenceRule.weekly(4)));
+
+        //Act
+        room.removeBooking("S1#1");
+
+        //Assert
+        assertThat(room.hasBooking("S1#1")).isFalse();
+        assertThat(room.getBooking("S1#2").getStartTime()).isEqualTo(base.plusWeeks(2));
+        assertThat(room.getBookings(base, base.plusWeeks(4))).extracting(Booking::getId)
+                .containsExactly("S1#0", "S1#2", "S1#3");
+        assertThat(room.getSeries().get(0).getRule().exceptions()).containsExactly(base.toLocalDate().plusWeeks(1));
+    }
+
+    /**
+     * Added and removed bookings are tracked until the room is marked saved.
+     */
+    @Test
+    void pending_changes_track_bookings_since_last_save() {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addBooking(new Booking("B1", "room1", base, base.plusHours(1)));
+        room.markSaved();
+
+        //Act
+        room.addBooking(new Booking("B2", "room1", base.plusHours(2), base.plusHours(3)));
+        room.addBooking(new Booking("B3", "room1", base.plusHours(4), base.plusHours(5)));
+        room.removeBooking("B1");
+        room.removeBooking("B3");
+        Room.Changes changes = room.pendingChanges();
+        room.markSaved();
+
+        //Assert
+        assertThat(changes.added()).extracting(Booking::getId).containsExactly("B2");
+        assertThat(changes.removed()).containsExactlyInAnyOrder("B1", "B3");
+        assertThat(changes.seriesChanged()).isFalse();
+        assertThat(room.pendingChanges().isEmpty()).isTrue();
+    }
+
+    /**
+     * A room that is changed but never saved stops tracking single changes once the limit is
+     * passed and asks for a full save instead, until it is marked saved again.
+     */
+    @Test
+    void pending_changes_are_truncated_when_room_is_never_saved() {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+
+        //Act
+        for (int i = 0; i <= Room.MAX_TRACKED_CHANGES; i++) {
+            room.addBooking(new Booking("B" + i, "room1", base.plusHours(2L * i), base.plusHours(2L * i + 1)));
+        }
+        Room.Changes truncated = room.pendingChanges();
+        room.markSaved();
+        room.removeBooking("B0");
+        Room.Changes afterSave = room.pendingChanges();
+
+        //Assert
+        assertThat(truncated.added()).isEmpty();
+        assertThat(truncated.requiresFullSave()).isTrue();
+        assertThat(truncated.isEmpty()).isFalse();
+        assertThat(afterSave.requiresFullSave()).isFalse();
+        assertThat(afterSave.removed()).containsExactly("B0");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link TimeOrderedIdGenerator}.
+ */
+class TimeOrderedIdGeneratorTest {
+
+    /**
+     * Ids created in a burst within the same millisecond still sort in creation order.
+     */
+    @Test
+    void ids_sort_in_creation_order_within_same_millisecond() {
+        //Arrange
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(() -> 1_768_900_000_000L, 42);
+        List<String> ids = new ArrayList<>();
+
+        //Act
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(generator.nextId());
+        }
+
+        //Assert
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(ids).allSatisfy(id -> assertThat(id).hasSize(TimeOrderedIdGenerator.LENGTH));
+    }
+
+    /**
+     * A clock that moves backwards never makes the ids go backwards.
+     */
+    @Test
+    void ids_stay_monotonic_when_clock_moves_backwards() {
+        //Arrange
+        Iterator<Long> times = List.of(2_000L, 1_000L, 3_000L).iterator();
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(times::next, 7);
+
+        //Act
+        String first = generator.nextId();
+        String second = generator.nextId();
+        String third = generator.nextId();
+
+        //Assert
+        assertThat(List.of(first, second, third)).isSorted().doesNotHaveDuplicates();
+    }
+
+    /**
+     * Concurrent callers never receive the same id.
+     */
+    @Test
+    void concurrent_ids_are_unique() throws Exception {
+        //Arrange
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        //Act
+        for (int thread = 0; thread < 8; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //Assert
+        assertThat(ids).hasSize(160_000);
+    }
+}
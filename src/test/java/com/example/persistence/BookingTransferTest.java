@@ -0,0 +1,205 @@
+package com.example.persistence;
+
+import com.example.AvailabilityCache;
+import com.example.Booking;
+import com.example.BookingSystem;
+import com.example.NotificationService;
+import com.example.OccupancyIndex;
+import com.example.RecurrenceRule;
+import com.example.RecurringBooking;
+import com.example.Room;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link BookingTransfer}.
+ * Each test exports rooms to an in-memory channel and imports them into a log repository.
+ */
+class BookingTransferTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 1, 21, 10, 0);
+
+    /**
+     * Bookings, series and empty rooms survive a binary export and import.
+     */
+    @Test
+    void binary_export_round_trips_rooms_bookings_and_series() throws IOException {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+        room.addSeries(new RecurringBooking("S1", "room1", start.plusHours(2), start.plusHours(3),
+                RecurrenceRule.daily(5)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = BookingTransfer.exportBinary(Stream.of(room, new Room("room2", "Garden Room")),
+                Channels.newChannel(out));
+
+        //Act
+        BookingTransfer.ImportResult result;
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            result = BookingTransfer.importBinary(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+                    repository);
+        }
+
+        //Assert
+        assertThat(exported).isEqualTo(1);
+        assertThat(result).isEqualTo(new BookingTransfer.ImportResult(2, 2, 0));
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+            assertThat(reopened.findAll()).extracting(Room::getId).containsExactly("room1", "room2");
+            Room imported = reopened.findById("room1").orElseThrow();
+            assertThat(imported.getBookings()).extracting(Booking::getId).containsExactly("B1");
+            assertThat(imported.getSeries()).extracting(RecurringBooking::getId).containsExactly("S1");
+        }
+    }
+
+    /**
+     * Names with commas and quotes survive the CSV round trip, and rooms without bookings are kept.
+     */
+    @Test
+    void csv_export_round_trips_quoted_names() throws IOException {
+        //Arrange
+        Room room = new Room("room1", "Suite \"Ocean\", floor 2");
+        room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+        room.addBooking(new Booking("B2", "room1", start.plusHours(2), start.plusHours(3)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookingTransfer.exportCsv(Stream.of(room, new Room("room2", "Garden Room")), Channels.newChannel(out));
+
+        //Act
+        BookingTransfer.ImportResult result;
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            result = BookingTransfer.importCsv(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+                    repository);
+
+            //Assert
+            assertThat(out.toString(StandardCharsets.UTF_8)).startsWith("room_id,room_name,booking_id,start,end\n")
+                    .contains("room1,\"Suite \"\"Ocean\"\", floor 2\",B1,2026-01-21T10:00,2026-01-21T11:00\n")
+                    .endsWith("room2,Garden Room,,,\n");
+            assertThat(result).isEqualTo(new BookingTransfer.ImportResult(2, 2, 0));
+            Room imported = repository.findById("room1").orElseThrow();
+            assertThat(imported.getName()).isEqualTo("Suite \"Ocean\", floor 2");
+            assertThat(imported.getBookings()).extracting(Booking::getEndTime)
+                    .containsExactly(start.plusHours(1), start.plusHours(3));
+            assertThat(repository.findById("room2")).isPresent();
+        }
+    }
+
+    /**
+     * Rows overlapping existing bookings, duplicates and unparseable rows are skipped and counted.
+     */
+    @Test
+    void csv_import_rejects_overlapping_and_invalid_rows() throws IOException {
+        //Arrange
+        String csv = String.join("\n", List.of(
+                "room_id,room_name,booking_id,start,end",
+                "room1,Ocean Suite,B2,2026-01-21T10:30,2026-01-21T11:30",
+                "room1,Ocean Suite,B3,2026-01-21T12:00,2026-01-21T13:00",
+                "room1,Ocean Suite,B3,2026-01-21T14:00,2026-01-21T15:00",
+                "room1,Ocean Suite,B4,tomorrow,2026-01-21T15:00",
+                "room1,Ocean Suite")) + "\n";
+
+        //Act
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room existing = new Room("room1", "Ocean Suite");
+            existing.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+            repository.save(existing);
+            BookingTransfer.ImportResult result = BookingTransfer.importCsv(
+                    Channels.newChannel(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))), repository);
+
+            //Assert
+            assertThat(result).isEqualTo(new BookingTransfer.ImportResult(1, 1, 4));
+            assertThat(repository.findById("room1").orElseThrow().getBookings())
+                    .extracting(Booking::getId).containsExactly("B1", "B3");
+        }
+    }
+
+    /**
+     * A binary export cut off in the middle of a record is reported instead of silently imported.
+     */
+    @Test
+    void binary_import_fails_on_truncated_input() throws IOException {
+        //Arrange
+        Room room = new Room("room1", "Ocean Suite");
+        room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookingTransfer.exportBinary(Stream.of(room), Channels.newChannel(out));
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 3);
+
+        //Act + Assert
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            assertThatThrownBy(() -> BookingTransfer.importBinary(
+                    Channels.newChannel(new ByteArrayInputStream(truncated)), repository))
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    /**
+     * A corrupt record length is reported as a damaged record before any buffer is sized from it.
+     */
+    @Test
+    void binary_import_rejects_oversized_record_length() throws IOException {
+        //Arrange
+        ByteBuffer corrupt = ByteBuffer.allocate(Integer.BYTES + RecordCodec.HEADER_SIZE + 16);
+        corrupt.putInt(0x424B4731).putInt(Integer.MAX_VALUE - 8).putInt(0);
+
+        //Act + Assert
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            assertThatThrownBy(() -> BookingTransfer.importBinary(
+                    Channels.newChannel(new ByteArrayInputStream(corrupt.array())), repository))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("Skadad post");
+        }
+    }
+
+    /**
+     * An import bypasses a running booking system; once reindexed, the system excludes the
+     * imported booking from cached and indexed availability and can cancel it.
+     */
+    @Test
+    void booking_system_sees_imported_bookings_after_reindex() throws IOException {
+        //Arrange
+        LocalDateTime now = start.minusDays(1);
+        Room exported = new Room("room1", "Ocean Suite");
+        exported.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BookingTransfer.exportBinary(Stream.of(exported), Channels.newChannel(out));
+
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            repository.save(new Room("room1", "Ocean Suite"));
+            BookingSystem bookingSystem = new BookingSystem(() -> now, repository, mock(NotificationService.class));
+            bookingSystem.setOccupancyIndex(new OccupancyIndex(() -> now));
+            bookingSystem.setAvailabilityCache(new AvailabilityCache());
+            List<Room> beforeImport = bookingSystem.getAvailableRooms(start, start.plusHours(1));
+
+            //Act
+            BookingTransfer.importBinary(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), repository);
+            bookingSystem.reindex();
+            List<Room> afterImport = bookingSystem.getAvailableRooms(start, start.plusHours(1));
+            boolean cancelled = bookingSystem.cancelBooking("B1");
+            List<Room> afterCancel = bookingSystem.getAvailableRooms(start, start.plusHours(1));
+
+            //Assert
+            assertThat(beforeImport).extracting(Room::getId).containsExactly("room1");
+            assertThat(afterImport).isEmpty();
+            assertThat(cancelled).isTrue();
+            assertThat(afterCancel).extracting(Room::getId).containsExactly("room1");
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.persistence;
+
+import com.example.Booking;
+import com.example.RecurrenceRule;
+import com.example.RecurringBooking;
+import com.example.Room;
+import com.example.RoomAttributes;
+import com.example.RoomFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MappedLogRoomRepository}.
+ * Each test writes through one repository instance and verifies the state rebuilt by a new one.
+ */
+class MappedLogRoomRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 1, 21, 10, 0);
+
+    /**
+     * Added and removed bookings survive a restart through log replay.
+     */
+    @Test
+    void rebuilds_rooms_from_log_after_restart() throws IOException {
+        //Arrange
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+            room.addBooking(new Booking("B2", "room1", start.plusHours(2), start.plusHours(3)));
+            repository.save(room);
+            room.removeBooking("B1");
+            repository.save(room);
+            repository.save(new Room("room2", "Garden Room"));
+        }
+
+        //Act
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+
+            //Assert
+            assertThat(reopened.findAll()).extracting(Room::getId).containsExactly("room1", "room2");
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.getName()).isEqualTo("Ocean Suite");
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactly("B2");
+            assertThat(room.getBooking("B2").getEndTime()).isEqualTo(start.plusHours(3));
+            assertThat(reopened.findByBookingId("B2")).contains(room);
+            assertThat(reopened.findByBookingId("B1")).isEmpty();
+        }
+    }
+
+    /**
+     * State is rebuilt from the snapshot plus the records written after it.
+     */
+    @Test
+    void rebuilds_rooms_from_snapshot_and_remaining_log() throws IOException {
+        //Arrange
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory, 1, Duration.ZERO, 10)) {
+            Room room = new Room("room1", "Ocean Suite");
+            for (int i = 0; i < 25; i++) {
+                room.addBooking(new Booking("B" + i, "room1", start.plusHours(2L * i), start.plusHours(2L * i + 1)));
+                repository.save(room);
+            }
+            room.removeBooking("B3");
+            repository.save(room);
+        }
+
+        //Act
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+
+            //Assert
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.getBookings()).hasSize(24);
+            assertThat(room.hasBooking("B3")).isFalse();
+            assertThat(room.hasBooking("B24")).isTrue();
+        }
+    }
+
+    /**
+     * A partially written record at the end of the log is ignored and later overwritten.
+     */
+    @Test
+    void ignores_torn_record_at_end_of_log() throws IOException {
+        //Arrange
+        long validEnd;
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve("rooms.log"), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (RecordCodec.readFramed(data) != null) {
+                // Hoppa fram till slutet av giltiga poster
+            }
+            validEnd = data.position();
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 9, 9}), validEnd);
+        }
+
+        //Act
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            room.addBooking(new Booking("B2", "room1", start.plusHours(2), start.plusHours(3)));
+            reopened.save(room);
+        }
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+
+            //Assert
+            assertThat(reopened.findById("room1").orElseThrow().getBookings())
+                    .extracting(Booking::getId).containsExactly("B1", "B2");
+        }
+    }
+
+    /**
+     * A recurring series is logged as one record and keeps its cancelled occurrences after a restart.
+     */
+    @Test
+    void rebuilds_recurring_series_with_cancelled_occurrences() throws IOException {
+        //Arrange
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room room = new Room("room1", "Ocean Suite");
+            room.addSeries(new RecurringBooking("S1", "room1", start, start.plusMinutes(15), RecurrenceRule.weekly(520)));
+            repository.save(room);
+            room.removeBooking("S1#2");
+            repository.save(room);
+        }
+
+        //Act
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+
+            //Assert
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.getSeries()).hasSize(1);
+            assertThat(room.hasBooking("S1#2")).isFalse();
+            assertThat(room.hasBooking("S1#519")).isTrue();
+            assertThat(reopened.findByBookingId("S1#519")).contains(room);
+        }
+    }
+
+    /**
+     * A delta applied to a saved room is logged and survives a restart, while unknown rooms are refused.
+     */
+    @Test
+    void applies_booking_delta_to_saved_room() throws IOException {
+        //Arrange
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+            Booking added = new Booking("B2", "room1", start.plusHours(2), start.plusHours(3));
+            room.addBooking(added);
+            room.removeBooking("B1");
+
+            //Act
+            boolean applied = repository.applyChanges("room1", List.of(added), List.of("B1"));
+            boolean unknown = repository.applyChanges("room2", List.of(), List.of());
+
+            //Assert
+            assertThat(applied).isTrue();
+            assertThat(unknown).isFalse();
+        }
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactly("B2");
+            assertThat(room.pendingChanges().isEmpty()).isTrue();
+        }
+    }
+
+    /**
+     * Saving a room whole persists all of its changes, so the room is marked saved.
+     */
+    @Test
+    void save_marks_room_saved() throws IOException {
+        //Arrange
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room room = new Room("room1", "Ocean Suite");
+            room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+
+            //Act
+            repository.save(room);
+
+            //Assert
+            assertThat(room.pendingChanges().isEmpty()).isTrue();
+        }
+    }
+
+    /**
+     * Room attributes are written with the room record and restored on replay.
+     */
+    @Test
+    void restores_room_attributes_after_restart() throws IOException {
+        //Arrange
+        RoomAttributes attributes = RoomAttributes.of(12, "North", "projector", "whiteboard");
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            repository.save(new Room("room1", "Ocean Suite", attributes));
+            repository.save(new Room("room2", "Garden Room"));
+        }
+
+        //Act
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+
+            //Assert
+            assertThat(reopened.findById("room1").orElseThrow().getAttributes()).isEqualTo(attributes);
+            assertThat(reopened.findById("room2").orElseThrow().getAttributes()).isEqualTo(RoomAttributes.NONE);
+        }
+    }
+
+    /**
+     * Attribute search is answered from the index, which follows attribute changes across a restart.
+     */
+    @Test
+    void finds_rooms_by_attributes_after_change_and_restart() throws IOException {
+        //Arrange
+        try (MappedLogRoomRepository repository = MappedLogRoomRepository.open(directory)) {
+            Room room = new Room("room1", "Ocean Suite", RoomAttributes.of(4, "North", "whiteboard"));
+            room.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+            repository.save(new Room("room2", "Hall", RoomAttributes.of(40, "North", "projector")));
+            Room rebuilt = new Room("room1", "Ocean Suite", RoomAttributes.of(12, "North", "projector"));
+            rebuilt.addBooking(new Booking("B1", "room1", start, start.plusHours(1)));
+            repository.save(rebuilt);
+
+            //Act
+            List<Room> projector = repository.findByAttributes(RoomFilter.any().withEquipment("projector"));
+
+            //Assert
+            assertThat(projector).extracting(Room::getId).containsExactly("room1", "room2");
+            assertThat(repository.findByAttributes(RoomFilter.any().withEquipment("whiteboard"))).isEmpty();
+        }
+        try (MappedLogRoomRepository reopened = MappedLogRoomRepository.open(directory)) {
+            List<Room> large = reopened.findByAttributes(RoomFilter.any().withMinCapacity(10).inBuilding("North"));
+            assertThat(large).extracting(Room::getId).containsExactly("room1", "room2");
+            assertThat(large.getFirst().getBookings()).extracting(Booking::getId).containsExactly("B1");
+        }
+    }
+}